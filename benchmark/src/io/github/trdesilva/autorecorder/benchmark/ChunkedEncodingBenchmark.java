@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
+import io.github.trdesilva.autorecorder.clip.SmartCutter;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.ui.gui.wrapper.ThumbnailCache;
+import io.github.trdesilva.autorecorder.video.FfprobePool;
+import io.github.trdesilva.autorecorder.video.MetadataStore;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// re-encodes a long range of a generated OBS-like recording (1080p60 H.264 with a keyframe every 2 seconds, AAC audio)
+// split into 1, 2, 4 and 8 chunks encoded at the same time, sharing every core between them. throughput is in clips
+// per minute, with the seconds of video encoded per minute alongside. needs ffmpeg and ffprobe on the PATH, or
+// -Dffmpeg.path and -Dffprobe.path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 1, time = 1, timeUnit = TimeUnit.MINUTES)
+@Measurement(iterations = 3, time = 2, timeUnit = TimeUnit.MINUTES)
+@Fork(1)
+public class ChunkedEncodingBenchmark
+{
+    @Param({"600"})
+    public int recordingSeconds;
+    
+    @Param({"180"})
+    public int clipSeconds;
+    
+    @Param({"1", "2", "4", "8"})
+    public int chunkCount;
+    
+    private File directory;
+    private File recording;
+    private File clip;
+    private FfprobePool ffprobePool;
+    private MetadataStore metadataStore;
+    private SmartCutter smartCutter;
+    private long startMillis;
+    private long endMillis;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ChunkedEncodingBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class EncodedVideo
+    {
+        public long videoSeconds;
+        
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            videoSeconds = 0;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException, ExecutionException
+    {
+        String ffmpegPath = findExecutable("ffmpeg");
+        String ffprobePath = findExecutable("ffprobe");
+        EventQueue events = new EventQueue(new EventHistory(), false);
+        Settings settings = new Settings(events)
+        {
+            @Override
+            public String getFfmpegPath()
+            {
+                return ffmpegPath;
+            }
+            
+            @Override
+            public String getFfprobePath()
+            {
+                return ffprobePath;
+            }
+        };
+        FfmpegHelper ffmpegHelper = new FfmpegHelper(settings);
+        directory = Files.createTempDirectory("autorecorder-chunks").toFile();
+        ffprobePool = new FfprobePool(settings);
+        metadataStore = new MetadataStore(events, new File(directory, "videoMetadata").toPath());
+        VideoMetadataHandler metadataHandler = new VideoMetadataHandler(settings, events, ffmpegHelper,
+                                                                        new ThumbnailCache(events), ffprobePool,
+                                                                        metadataStore);
+        smartCutter = new SmartCutter(ffmpegHelper, metadataHandler, events);
+        
+        recording = new File(directory, "recording.mp4");
+        clip = new File(directory, "clip.mp4");
+        ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                "-f", "lavfi", "-i", "testsrc2=size=1920x1080:rate=60", "-f", "lavfi", "-i", "sine=frequency=440",
+                "-t", Integer.toString(recordingSeconds), "-c:v", "libx264", "-preset", "veryfast", "-g", "120",
+                "-pix_fmt", "yuv420p", "-c:a", "aac", recording.getAbsolutePath())));
+        
+        startMillis = (recordingSeconds - clipSeconds) / 2 * 1000L + 700;
+        endMillis = startMillis + clipSeconds * 1000L;
+        
+        // chunks are split at keyframes, which ClipTrimmer only does once they're known
+        metadataHandler.getKeyframeIndexAsync(recording).get();
+    }
+    
+    @TearDown(Level.Invocation)
+    public void deleteClip()
+    {
+        clip.delete();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        ffprobePool.close();
+        metadataStore.close();
+        FileUtils.deleteDirectory(directory);
+    }
+    
+    // one chunk is the same encode ClipTrimmer does without chunking, plus a remux through the concat demuxer
+    @Benchmark
+    public void encodeChunked(EncodedVideo encoded) throws IOException, InterruptedException
+    {
+        if(!smartCutter.encodeChunked(recording, clip, startMillis, endMillis, chunkCount, 0, null))
+        {
+            throw new IllegalStateException("generated recording's keyframes aren't known");
+        }
+        encoded.videoSeconds += clipSeconds;
+    }
+    
+    // FfmpegHelper runs from the executable's directory, so it needs a full path
+    private static String findExecutable(String name)
+    {
+        String path = System.getProperty(name + ".path");
+        if(path != null)
+        {
+            return new File(path).getAbsolutePath();
+        }
+        for(String dir: System.getenv("PATH").split(File.pathSeparator))
+        {
+            for(String candidate: Arrays.asList(name, name + ".exe"))
+            {
+                File file = new File(dir, candidate);
+                if(file.canExecute())
+                {
+                    return file.getAbsolutePath();
+                }
+            }
+        }
+        throw new IllegalStateException(name + " isn't on the PATH; set -D" + name + ".path");
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
+import io.github.trdesilva.autorecorder.clip.SmartCutter;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.ui.gui.wrapper.ThumbnailCache;
+import io.github.trdesilva.autorecorder.video.FfprobePool;
+import io.github.trdesilva.autorecorder.video.MetadataStore;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// cuts a few minutes out of a generated OBS-like recording (1080p60 H.264 with a keyframe every 2 seconds, AAC audio)
+// by re-encoding all of it the way clips used to be made, by copying all of it, and by smart cutting. the range
+// deliberately starts and ends between keyframes. needs ffmpeg and ffprobe on the PATH, or -Dffmpeg.path and
+// -Dffprobe.path. segmented clips are measured the same way, with a few segments that each start on a keyframe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ClipCuttingBenchmark
+{
+    @Param({"600"})
+    public int recordingSeconds;
+    
+    @Param({"180"})
+    public int clipSeconds;
+    
+    @Param({"3"})
+    public int segmentCount;
+    
+    private File directory;
+    private File recording;
+    private File clip;
+    private FfmpegHelper ffmpegHelper;
+    private FfprobePool ffprobePool;
+    private MetadataStore metadataStore;
+    private SmartCutter smartCutter;
+    private long startMillis;
+    private long endMillis;
+    private List<Long> segmentStartMillis;
+    private List<Long> segmentEndMillis;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ClipCuttingBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException, ExecutionException
+    {
+        String ffmpegPath = findExecutable("ffmpeg");
+        String ffprobePath = findExecutable("ffprobe");
+        EventQueue events = new EventQueue(new EventHistory(), false);
+        Settings settings = new Settings(events)
+        {
+            @Override
+            public String getFfmpegPath()
+            {
+                return ffmpegPath;
+            }
+            
+            @Override
+            public String getFfprobePath()
+            {
+                return ffprobePath;
+            }
+        };
+        ffmpegHelper = new FfmpegHelper(settings);
+        directory = Files.createTempDirectory("autorecorder-clips").toFile();
+        ffprobePool = new FfprobePool(settings);
+        metadataStore = new MetadataStore(events, new File(directory, "videoMetadata").toPath());
+        VideoMetadataHandler metadataHandler = new VideoMetadataHandler(settings, events, ffmpegHelper,
+                                                                        new ThumbnailCache(events), ffprobePool,
+                                                                        metadataStore);
+        smartCutter = new SmartCutter(ffmpegHelper, metadataHandler, events);
+        
+        recording = new File(directory, "recording.mp4");
+        clip = new File(directory, "clip.mp4");
+        ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                "-f", "lavfi", "-i", "testsrc2=size=1920x1080:rate=60", "-f", "lavfi", "-i", "sine=frequency=440",
+                "-t", Integer.toString(recordingSeconds), "-c:v", "libx264", "-preset", "veryfast", "-g", "120",
+                "-pix_fmt", "yuv420p", "-c:a", "aac", recording.getAbsolutePath())));
+        
+        startMillis = (recordingSeconds - clipSeconds) / 2 * 1000L + 700;
+        endMillis = startMillis + clipSeconds * 1000L + 600;
+        
+        // spread out over the recording, each starting on one of the generated keyframes every 2 seconds
+        segmentStartMillis = new ArrayList<>();
+        segmentEndMillis = new ArrayList<>();
+        for(int i = 1; i <= segmentCount; i++)
+        {
+            long segmentStart = recordingSeconds * i / (segmentCount + 1) / 2 * 2000L;
+            segmentStartMillis.add(segmentStart);
+            segmentEndMillis.add(segmentStart + clipSeconds * 1000L / segmentCount);
+        }
+        
+        // recordings are indexed as soon as they finish, so by the time one is clipped its keyframes are known
+        metadataHandler.getKeyframeIndexAsync(recording).get();
+    }
+    
+    @TearDown(Level.Invocation)
+    public void deleteClip()
+    {
+        clip.delete();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        ffprobePool.close();
+        metadataStore.close();
+        FileUtils.deleteDirectory(directory);
+    }
+    
+    // what ClipTrimmer did for every clip before smart cutting
+    @Benchmark
+    public void fullReencode() throws IOException, InterruptedException
+    {
+        ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                "-ss", seconds(startMillis), "-i", recording.getAbsolutePath(), "-to", seconds(endMillis - startMillis),
+                "-vcodec", "libx264", "-acodec", "aac", clip.getAbsolutePath())));
+    }
+    
+    // the lower bound, though the clip starts at the keyframe before the range rather than where it was asked to
+    @Benchmark
+    public void streamCopy() throws IOException, InterruptedException
+    {
+        ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                "-ss", seconds(startMillis), "-i", recording.getAbsolutePath(), "-to", seconds(endMillis - startMillis),
+                "-c", "copy", clip.getAbsolutePath())));
+    }
+    
+    @Benchmark
+    public void smartCut() throws IOException, InterruptedException
+    {
+        if(!smartCutter.cut(recording, clip, startMillis, endMillis))
+        {
+            throw new IllegalStateException("generated recording couldn't be smart cut");
+        }
+    }
+    
+    // what ClipTrimmer did for segmented clips: each segment encoded to its own file, then all of them encoded again
+    @Benchmark
+    public void segmentedTwoPass() throws IOException, InterruptedException
+    {
+        List<String> concatArgs = new LinkedList<>();
+        StringBuilder filter = new StringBuilder();
+        List<File> temps = new ArrayList<>();
+        try
+        {
+            for(int i = 0; i < segmentCount; i++)
+            {
+                File temp = new File(directory, "temp" + i + "_clip.mp4");
+                temps.add(temp);
+                ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                        "-ss", seconds(segmentStartMillis.get(i)), "-i", recording.getAbsolutePath(), "-to",
+                        seconds(segmentEndMillis.get(i) - segmentStartMillis.get(i)), "-vcodec", "libx264", "-acodec",
+                        "aac", temp.getAbsolutePath())));
+                concatArgs.addAll(Arrays.asList("-i", temp.getAbsolutePath()));
+                filter.append(String.format("[%d:v] [%d:a] ", i, i));
+            }
+            filter.append(String.format("concat=n=%d:v=1:a=1 [v] [a]", segmentCount));
+            concatArgs.addAll(Arrays.asList("-filter_complex", filter.toString(), "-map", "[v]", "-map", "[a]",
+                                            clip.getAbsolutePath()));
+            ffmpegHelper.runFfmpeg(concatArgs);
+        }
+        finally
+        {
+            temps.forEach(File::delete);
+        }
+    }
+    
+    // what ClipTrimmer does for segments that don't start on keyframes
+    @Benchmark
+    public void segmentedSinglePass() throws IOException, InterruptedException
+    {
+        List<String> ffmpegArgs = new LinkedList<>();
+        StringBuilder filter = new StringBuilder();
+        for(int i = 0; i < segmentCount; i++)
+        {
+            ffmpegArgs.addAll(Arrays.asList("-ss", seconds(segmentStartMillis.get(i)), "-t",
+                                            seconds(segmentEndMillis.get(i) - segmentStartMillis.get(i)), "-i",
+                                            recording.getAbsolutePath()));
+            filter.append(String.format("[%d:v] [%d:a] ", i, i));
+        }
+        filter.append(String.format("concat=n=%d:v=1:a=1 [v] [a]", segmentCount));
+        ffmpegArgs.addAll(Arrays.asList("-filter_complex", filter.toString(), "-map", "[v]", "-map", "[a]", "-vcodec",
+                                        "libx264", "-acodec", "aac", clip.getAbsolutePath()));
+        ffmpegHelper.runFfmpeg(ffmpegArgs);
+    }
+    
+    @Benchmark
+    public void segmentedCopy() throws IOException, InterruptedException
+    {
+        if(!smartCutter.copySegments(recording, clip, segmentStartMillis, segmentEndMillis, null))
+        {
+            throw new IllegalStateException("generated recording's segments couldn't be copied");
+        }
+    }
+    
+    private static String seconds(long millis)
+    {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.);
+    }
+    
+    // FfmpegHelper runs from the executable's directory, so it needs a full path
+    private static String findExecutable(String name)
+    {
+        String path = System.getProperty(name + ".path");
+        if(path != null)
+        {
+            return new File(path).getAbsolutePath();
+        }
+        for(String dir: System.getenv("PATH").split(File.pathSeparator))
+        {
+            for(String candidate: Arrays.asList(name, name + ".exe"))
+            {
+                File file = new File(dir, candidate);
+                if(file.canExecute())
+                {
+                    return file.getAbsolutePath();
+                }
+            }
+        }
+        throw new IllegalStateException(name + " isn't on the PATH; set -D" + name + ".path");
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import io.github.trdesilva.autorecorder.video.ContainerHeaderParser;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// reads resolution and duration for a directory of OBS-shaped MP4 and MKV files, natively and through ffprobe.
+// the ffprobe side needs ffprobe on the PATH or -Dffprobe.path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainerHeaderBenchmark
+{
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final long DURATION_MILLIS = 754321;
+    
+    @Param({"40"})
+    public int fileCount;
+    
+    // stands in for the media data, which the MP4 moov comes after
+    @Param({"8388608"})
+    public int payloadBytes;
+    
+    private File directory;
+    private List<File> videos;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ContainerHeaderBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        directory = Files.createTempDirectory("autorecorder-headers").toFile();
+        videos = new ArrayList<>();
+        for(int i = 0; i < fileCount; i++)
+        {
+            File video = new File(directory, String.format("recording %d.%s", i, i % 2 == 0 ? "mp4" : "mkv"));
+            if(i % 2 == 0)
+            {
+                writeMp4(video);
+            }
+            else
+            {
+                writeMkv(video);
+            }
+            
+            ContainerHeaderParser.ContainerHeader header = ContainerHeaderParser.parse(video)
+                                                                                 .orElseThrow(() -> new IllegalStateException("Couldn't parse " + video));
+            if(header.getWidth() != WIDTH || header.getHeight() != HEIGHT
+                    || Math.abs(header.getDurationMillis() - DURATION_MILLIS) > 1)
+            {
+                throw new IllegalStateException("Wrong header for " + video);
+            }
+            videos.add(video);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(directory);
+    }
+    
+    @Benchmark
+    public void nativeHeaders(Blackhole blackhole)
+    {
+        for(File video: videos)
+        {
+            blackhole.consume(ContainerHeaderParser.parse(video));
+        }
+    }
+    
+    @Benchmark
+    public void ffprobe(Blackhole blackhole) throws IOException, InterruptedException
+    {
+        String ffprobePath = System.getProperty("ffprobe.path", "ffprobe");
+        for(File video: videos)
+        {
+            // same arguments VideoMetadataHandler has always used
+            Process process = new ProcessBuilder(ffprobePath, "-v", "quiet", "-print_format", "json", "-show_format",
+                                                 "-show_streams", "-select_streams", "v:0",
+                                                 video.getAbsolutePath()).start();
+            blackhole.consume(IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8));
+            process.waitFor();
+        }
+    }
+    
+    private void writeMp4(File video) throws IOException
+    {
+        try(RandomAccessFile file = new RandomAccessFile(video, "rw"))
+        {
+            file.write(box("ftyp", ascii("isom"), int32(512), ascii("isomiso2avc1mp41")));
+            // mdat header, then leave the payload sparse
+            file.writeInt(8 + payloadBytes);
+            file.write(ascii("mdat"));
+            file.seek(file.getFilePointer() + payloadBytes);
+            
+            int timescale = 1000;
+            byte[] mvhd = box("mvhd", new byte[4], int32(0), int32(0), int32(timescale), int32((int) DURATION_MILLIS),
+                              new byte[80]);
+            byte[] videoTrak = box("trak", tkhd(WIDTH, HEIGHT), box("mdia", hdlr("vide")));
+            byte[] audioTrak = box("trak", tkhd(0, 0), box("mdia", hdlr("soun")));
+            file.write(box("moov", mvhd, videoTrak, audioTrak));
+        }
+    }
+    
+    private void writeMkv(File video) throws IOException
+    {
+        ByteArrayOutputStream info = new ByteArrayOutputStream();
+        info.write(element(0x2AD7B1, int32(1000000)));
+        info.write(element(0x4489, doubleBytes(DURATION_MILLIS)));
+        info.write(element(0x4D80, ascii("Lavf59.27.100")));
+        
+        byte[] audioEntry = element(0xAE, element(0xD7, new byte[]{2}), element(0x83, new byte[]{2}),
+                                    element(0x86, ascii("A_AAC")));
+        byte[] videoEntry = element(0xAE, element(0xD7, new byte[]{1}), element(0x83, new byte[]{1}),
+                                    element(0x86, ascii("V_MPEG4/ISO/AVC")),
+                                    element(0xE0, element(0xB0, int16(WIDTH)), element(0xBA, int16(HEIGHT))));
+        
+        try(RandomAccessFile file = new RandomAccessFile(video, "rw"))
+        {
+            file.write(element(0x1A45DFA3, element(0x4282, ascii("matroska")), element(0x4287, new byte[]{4})));
+            // OBS writes Segment with an unknown size while recording, and the muxer leaves it that way
+            file.write(new byte[]{0x18, 0x53, (byte) 0x80, 0x67, 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                                  (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+            file.write(element(0xEC, new byte[64]));
+            file.write(element(0x1549A966, info.toByteArray()));
+            file.write(element(0x1654AE6B, audioEntry, videoEntry));
+            // a cluster header, then the payload
+            file.write(new byte[]{0x1F, 0x43, (byte) 0xB6, 0x75, 0x01, 0, 0, 0});
+            file.write(int32(payloadBytes));
+            file.seek(file.getFilePointer() + payloadBytes);
+            file.write(0);
+        }
+    }
+    
+    private static byte[] tkhd(int width, int height) throws IOException
+    {
+        // version 0: times, track ID, duration, reserved, layer, group, volume, matrix, then 16.16 dimensions
+        return box("tkhd", new byte[4], new byte[20], new byte[8], new byte[8], new byte[36], int32(width << 16),
+                   int32(height << 16));
+    }
+    
+    private static byte[] hdlr(String handlerType) throws IOException
+    {
+        return box("hdlr", new byte[4], int32(0), ascii(handlerType), new byte[12], ascii("handler\0"));
+    }
+    
+    private static byte[] box(String type, byte[]... children) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for(byte[] child: children)
+        {
+            body.write(child);
+        }
+        ByteArrayOutputStream box = new ByteArrayOutputStream();
+        box.write(int32(8 + body.size()));
+        box.write(ascii(type));
+        body.writeTo(box);
+        return box.toByteArray();
+    }
+    
+    private static byte[] element(int id, byte[]... children) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for(byte[] child: children)
+        {
+            body.write(child);
+        }
+        ByteArrayOutputStream element = new ByteArrayOutputStream();
+        // IDs are written with their marker bits, so just drop the leading zero bytes
+        int idBytes = 4 - Integer.numberOfLeadingZeros(id) / 8;
+        for(int i = idBytes - 1; i >= 0; i--)
+        {
+            element.write(id >>> (i * 8));
+        }
+        // always an 8 byte size, which is valid if not minimal
+        element.write(0x01);
+        long size = body.size();
+        for(int i = 6; i >= 0; i--)
+        {
+            element.write((int) (size >>> (i * 8)));
+        }
+        body.writeTo(element);
+        return element.toByteArray();
+    }
+    
+    private static byte[] ascii(String s)
+    {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private static byte[] int16(int value)
+    {
+        return new byte[]{(byte) (value >>> 8), (byte) value};
+    }
+    
+    private static byte[] int32(int value)
+    {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+    
+    private static byte[] doubleBytes(double value)
+    {
+        long bits = Double.doubleToLongBits(value);
+        byte[] bytes = new byte[8];
+        for(int i = 0; i < 8; i++)
+        {
+            bytes[i] = (byte) (bits >>> (56 - i * 8));
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import com.google.common.collect.Sets;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventConsumer;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// posts a session-like mix of events through EventQueue to stand-ins for the app's consumers and waits for every delivery
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDispatchBenchmark
+{
+    private static final int MIX_SIZE = 512;
+    
+    private EventQueue events;
+    private AtomicLong delivered;
+    private StubConsumer bookmarkListener;
+    
+    private Event[] mix;
+    private long deliveriesPerMix;
+    private Event recordingStart;
+    
+    private PrintStream originalOut;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(EventDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        // EventQueue echoes events to stdout, which would otherwise dominate the measurement
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        
+        // debug mode, so the debug-heavy mix below is actually delivered
+        events = new EventQueue(new EventHistory(), true);
+        delivered = new AtomicLong();
+        
+        // same subscriptions as the real consumers; the list handlers and panels exist once per video type
+        List<StubConsumer> consumers = new LinkedList<>();
+        for(int i = 0; i < 2; i++)
+        {
+            consumers.add(new StubConsumer(Sets.immutableEnumSet(EventType.RECORDING_START, EventType.SETTINGS_CHANGE,
+                                                                 EventType.BOOKMARK, EventType.UPLOAD_END)));
+            consumers.add(new StubConsumer(Sets.immutableEnumSet(EventType.RECORDING_END)));
+            consumers.add(new StubConsumer(Collections.singleton(EventType.THUMBNAIL_GENERATED)));
+        }
+        consumers.add(new StubConsumer(Sets.immutableEnumSet(EventType.SETTINGS_CHANGE,
+                                                             EventType.MANUAL_RECORDING_START,
+                                                             EventType.MANUAL_RECORDING_END)));
+        consumers.add(new StubConsumer(Sets.immutableEnumSet(EventType.SUCCESS, EventType.FAILURE, EventType.WARNING,
+                                                             EventType.INFO, EventType.DEBUG)));
+        consumers.add(new StubConsumer(Sets.immutableEnumSet(EventType.RECORDING_START, EventType.RECORDING_END,
+                                                             EventType.CLIP_START, EventType.CLIP_END,
+                                                             EventType.UPLOAD_START, EventType.UPLOAD_END)));
+        bookmarkListener = new StubConsumer(Sets.immutableEnumSet(EventType.RECORDING_START,
+                                                                  EventType.RECORDING_END));
+        consumers.add(bookmarkListener);
+        consumers.forEach(events::addConsumer);
+        
+        // mostly debug chatter with the occasional status message, thumbnail and recording or clip transition
+        Random random = new Random(42);
+        EventType[] types = EventType.values();
+        mix = new Event[MIX_SIZE];
+        for(int i = 0; i < MIX_SIZE; i++)
+        {
+            int roll = random.nextInt(100);
+            EventType type;
+            if(roll < 80)
+            {
+                type = EventType.DEBUG;
+            }
+            else if(roll < 90)
+            {
+                type = EventType.INFO;
+            }
+            else
+            {
+                type = types[random.nextInt(types.length)];
+            }
+            mix[i] = new Event(type, "benchmark event " + i);
+            for(StubConsumer consumer: consumers)
+            {
+                if(consumer.getSubscriptions().contains(type))
+                {
+                    deliveriesPerMix++;
+                }
+            }
+        }
+        recordingStart = new Event(EventType.RECORDING_START, "benchmark recording");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        System.setOut(originalOut);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(MIX_SIZE)
+    public void dispatchThroughput()
+    {
+        long target = delivered.get() + deliveriesPerMix;
+        for(Event event: mix)
+        {
+            events.postEvent(event);
+        }
+        while(delivered.get() < target)
+        {
+            Thread.onSpinWait();
+        }
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void recordingStartLatency()
+    {
+        long target = bookmarkListener.received.get() + 1;
+        events.postEvent(recordingStart);
+        while(bookmarkListener.received.get() < target)
+        {
+            Thread.onSpinWait();
+        }
+    }
+    
+    private class StubConsumer implements EventConsumer
+    {
+        private final Set<EventType> subscriptions;
+        private final AtomicLong received;
+        
+        private StubConsumer(Set<EventType> subscriptions)
+        {
+            this.subscriptions = subscriptions;
+            received = new AtomicLong();
+        }
+        
+        @Override
+        public void post(Event event)
+        {
+            received.incrementAndGet();
+            delivered.incrementAndGet();
+        }
+        
+        @Override
+        public Set<EventType> getSubscriptions()
+        {
+            return subscriptions;
+        }
+    }
+}
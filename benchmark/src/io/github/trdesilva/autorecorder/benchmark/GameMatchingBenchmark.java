@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import io.github.trdesilva.autorecorder.record.GameExecutableIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// compares GameListener's old per-subpath set lookups with GameExecutableIndex over one listener tick's worth of processes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameMatchingBenchmark
+{
+    private static final String[] SYSTEM_PROCESSES = {
+            "C:\\Windows\\System32\\svchost.exe", "C:\\Windows\\System32\\RuntimeBroker.exe",
+            "C:\\Windows\\System32\\conhost.exe", "C:\\Windows\\explorer.exe", "C:\\Windows\\System32\\dwm.exe",
+            "C:\\Windows\\System32\\sihost.exe", "C:\\Windows\\System32\\taskhostw.exe",
+            "C:\\Windows\\SystemApps\\MicrosoftWindows.Client.CBS_cw5n1h2txyewy\\SearchHost.exe",
+            "C:\\Program Files\\Google\\Chrome\\Application\\chrome.exe",
+            "C:\\Users\\user\\AppData\\Local\\Discord\\app-1.0.9013\\Discord.exe",
+            "C:\\Program Files (x86)\\Steam\\steam.exe",
+            "C:\\Program Files (x86)\\Steam\\bin\\cef\\cef.win7x64\\steamwebhelper.exe",
+            "C:\\Program Files\\obs-studio\\bin\\64bit\\obs64.exe",
+            "C:\\Program Files\\NVIDIA Corporation\\NVIDIA app\\CEF\\NVIDIA Overlay.exe",
+            "C:\\Program Files\\Eclipse Adoptium\\jdk-11.0.16.101-hotspot\\bin\\javaw.exe"
+    };
+    
+    @Param({"300"})
+    public int processCount;
+    
+    @Param({"30000"})
+    public int exeCount;
+    
+    private Set<String> games;
+    private GameExecutableIndex index;
+    private List<Path> commands;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(GameMatchingBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        
+        // shaped like Discord's detectable list: mostly bare exe names, some with the directories that disambiguate them
+        games = new HashSet<>();
+        for(int i = 0; i < exeCount; i++)
+        {
+            String name = "game" + Integer.toString(random.nextInt(1 << 24), 36);
+            switch(i % 4)
+            {
+                case 0:
+                    games.add(formatExeName(name + "/binaries/win64/" + name + "-win64-shipping.exe"));
+                    break;
+                case 1:
+                    games.add(formatExeName("bin/" + name + ".exe"));
+                    break;
+                default:
+                    games.add(formatExeName(name + ".exe"));
+            }
+        }
+        index = GameExecutableIndex.build(games);
+        
+        commands = new ArrayList<>();
+        for(int i = 0; i < processCount - 1; i++)
+        {
+            commands.add(Paths.get(SYSTEM_PROCESSES[random.nextInt(SYSTEM_PROCESSES.length)]));
+        }
+        String game = games.iterator().next();
+        commands.add(Paths.get("C:\\Program Files (x86)\\Steam\\steamapps\\common\\Some Game\\" + game));
+    }
+    
+    @Benchmark
+    public void subpathSetLookup(Blackhole blackhole)
+    {
+        for(Path command: commands)
+        {
+            Optional<String> programOptional = Optional.empty();
+            for(int i = 1; i <= command.getNameCount(); i++)
+            {
+                String program = command.subpath(command.getNameCount() - i, command.getNameCount()).toString();
+                if(games.contains(formatExeName(program)))
+                {
+                    programOptional = Optional.of(program);
+                    break;
+                }
+            }
+            blackhole.consume(programOptional);
+        }
+    }
+    
+    @Benchmark
+    public void suffixTrie(Blackhole blackhole)
+    {
+        for(Path command: commands)
+        {
+            blackhole.consume(index.match(command));
+        }
+    }
+    
+    private static String formatExeName(String original)
+    {
+        // same as Settings.formatExeName
+        return original.toLowerCase().replace("/", FileSystems.getDefault().getSeparator());
+    }
+}
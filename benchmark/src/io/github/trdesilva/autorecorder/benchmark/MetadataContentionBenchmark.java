@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.benchmark;
+
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.ui.gui.wrapper.ThumbnailCache;
+import io.github.trdesilva.autorecorder.video.FfprobePool;
+import io.github.trdesilva.autorecorder.video.MetadataStore;
+import io.github.trdesilva.autorecorder.video.VideoMetadata;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// loads the metadata for a 1,000 video library from a pool of threads, starting from a cold cache every time, the way
+// the recording and clip lists do when they open. every video already has stored metadata, so ffprobe never runs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class MetadataContentionBenchmark
+{
+    private static final int VIDEO_COUNT = 1000;
+    
+    @Param({"1", "4", "16"})
+    public int threads;
+    
+    private Path directory;
+    private Path storeDir;
+    private List<File> videos;
+    private EventQueue events;
+    private Settings settings;
+    private ExecutorService pool;
+    
+    // recreated for every iteration so each one starts cold
+    private MetadataStore store;
+    private FfprobePool ffprobePool;
+    private VideoMetadataHandler handler;
+    
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(MetadataContentionBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        directory = Files.createTempDirectory("autorecorder-metadata");
+        storeDir = directory.resolve("videoMetadata");
+        Path recordingDir = Files.createDirectories(directory.resolve("recordings"));
+        events = new EventQueue(new EventHistory(), false);
+        settings = new Settings(events);
+        pool = Executors.newFixedThreadPool(threads);
+        
+        videos = new ArrayList<>(VIDEO_COUNT);
+        for(int i = 0; i < VIDEO_COUNT; i++)
+        {
+            videos.add(Files.createFile(recordingDir.resolve(String.format("recording %d.mp4", i))).toFile());
+        }
+        
+        // complete metadata, so nothing needs a reparse
+        createHandler();
+        for(int i = 0; i < VIDEO_COUNT; i++)
+        {
+            VideoMetadata metadata = new VideoMetadata();
+            metadata.setDuration(600000 + i);
+            metadata.setResolution("1920x1080");
+            metadata.setGameName("game " + i % 20);
+            metadata.setThumbnailPath(directory.resolve("thumbnail.jpg").toString());
+            for(int j = 0; j < i % 4; j++)
+            {
+                metadata.getBookmarks().add(j * 60000L);
+            }
+            handler.saveMetadata(videos.get(i), metadata);
+        }
+        closeHandler();
+    }
+    
+    @Setup(Level.Iteration)
+    public void createHandler() throws IOException
+    {
+        store = new MetadataStore(events, storeDir);
+        // the log is opened and indexed on first use, which isn't what's being measured
+        store.keys();
+        ffprobePool = new FfprobePool(settings);
+        handler = new VideoMetadataHandler(settings, events, new FfmpegHelper(settings), new ThumbnailCache(events),
+                                           ffprobePool, store);
+    }
+    
+    @TearDown(Level.Iteration)
+    public void closeHandler()
+    {
+        ffprobePool.close();
+        store.close();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        pool.shutdownNow();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+    
+    @Benchmark
+    public void loadLibrary() throws Exception
+    {
+        List<Future<?>> loads = new ArrayList<>(VIDEO_COUNT);
+        for(File video: videos)
+        {
+            loads.add(pool.submit(() -> handler.getMetadata(video)));
+        }
+        for(Future<?> load: loads)
+        {
+            load.get();
+        }
+    }
+    
+    // every tenth video also gets its game name changed, like tagging from the recording list
+    @Benchmark
+    public void loadAndTagLibrary() throws Exception
+    {
+        List<Future<?>> loads = new ArrayList<>(VIDEO_COUNT);
+        for(int i = 0; i < VIDEO_COUNT; i++)
+        {
+            File video = videos.get(i);
+            boolean tag = i % 10 == 0;
+            loads.add(pool.submit(() -> {
+                VideoMetadata metadata = handler.getMetadata(video);
+                if(tag)
+                {
+                    metadata.setGameName("retagged");
+                    handler.saveMetadata(video, metadata);
+                }
+            }));
+        }
+        for(Future<?> load: loads)
+        {
+            load.get();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// an append-only record of a queue's jobs, one json line per enqueue, start, progress update and finish, so jobs that
+// were still queued or running when the app closed can be picked up again on the next start. a line cut off by a
+// crash is the last one in the file and is ignored. the file is rewritten with just the unfinished jobs when it's
+// opened, and emptied whenever everything in it is finished, so it never grows past one batch of jobs
+public class JobJournal<T>
+{
+    private static final String OP_ENQUEUE = "enqueue";
+    private static final String OP_START = "start";
+    private static final String OP_PROGRESS = "progress";
+    private static final String OP_FINISH = "finish";
+    
+    private final Path path;
+    private final Class<T> jobType;
+    private final EventQueue events;
+    private final ObjectMapper objectMapper;
+    
+    // guarded by this. not a FileChannel, since the queues interrupt the threads that write to this to cancel jobs, and
+    // an interrupt closes a channel for good
+    private RandomAccessFile file;
+    private long nextId;
+    private final Set<Long> unfinishedIds;
+    private List<Entry<T>> recovered;
+    
+    public JobJournal(Path path, Class<T> jobType, EventQueue events)
+    {
+        this.path = path;
+        this.jobType = jobType;
+        this.events = events;
+        objectMapper = new ObjectMapper();
+        unfinishedIds = new HashSet<>();
+    }
+    
+    // the jobs that were unfinished when the journal was opened, in the order they were queued; only returned once
+    public synchronized List<Entry<T>> takeRecovered() throws IOException
+    {
+        open();
+        List<Entry<T>> taken = recovered;
+        recovered = Collections.emptyList();
+        return taken;
+    }
+    
+    public synchronized long enqueued(T job) throws IOException
+    {
+        open();
+        long id = nextId++;
+        ObjectNode record = newRecord(OP_ENQUEUE, id);
+        record.set("job", objectMapper.valueToTree(job));
+        append(record);
+        unfinishedIds.add(id);
+        return id;
+    }
+    
+    public synchronized void started(long id) throws IOException
+    {
+        open();
+        append(newRecord(OP_START, id));
+    }
+    
+    // fraction is from 0 to 1
+    public synchronized void progressed(long id, double fraction) throws IOException
+    {
+        open();
+        append(newRecord(OP_PROGRESS, id).put("fraction", fraction));
+    }
+    
+    // whether it succeeded, failed or was cancelled; anything finished isn't tried again. finishing it again does nothing
+    public synchronized void finished(long id) throws IOException
+    {
+        open();
+        if(!unfinishedIds.remove(id))
+        {
+            return;
+        }
+        append(newRecord(OP_FINISH, id));
+        if(unfinishedIds.isEmpty())
+        {
+            file.setLength(0);
+            file.getFD().sync();
+        }
+    }
+    
+    public synchronized void close()
+    {
+        if(file != null)
+        {
+            try
+            {
+                file.close();
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> "failed to close " + path.getFileName() + ": " + e.getMessage());
+            }
+            file = null;
+        }
+    }
+    
+    // deferred until first use because SETTINGS_DIR doesn't exist during construction on first launch
+    private void open() throws IOException
+    {
+        if(file != null)
+        {
+            return;
+        }
+        
+        Files.createDirectories(path.getParent());
+        Map<Long, Entry<T>> unfinished = replay();
+        recovered = new ArrayList<>(unfinished.values());
+        unfinishedIds.addAll(unfinished.keySet());
+        
+        // rewritten with just what's left before anything new is added to it
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try(Writer compactWriter = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8))
+        {
+            for(Entry<T> entry: recovered)
+            {
+                ObjectNode record = newRecord(OP_ENQUEUE, entry.id);
+                record.set("job", objectMapper.valueToTree(entry.job));
+                compactWriter.write(record.toString());
+                compactWriter.write('\n');
+                if(entry.started)
+                {
+                    compactWriter.write(newRecord(OP_START, entry.id).toString());
+                    compactWriter.write('\n');
+                }
+                if(entry.progress > 0)
+                {
+                    compactWriter.write(newRecord(OP_PROGRESS, entry.id).put("fraction", entry.progress).toString());
+                    compactWriter.write('\n');
+                }
+            }
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        file = new RandomAccessFile(path.toFile(), "rw");
+        file.seek(file.length());
+        if(!recovered.isEmpty())
+        {
+            events.postEvent(EventType.DEBUG, () -> String.format("%s has %d unfinished jobs", path.getFileName(),
+                                                                  recovered.size()));
+        }
+    }
+    
+    private Map<Long, Entry<T>> replay() throws IOException
+    {
+        Map<Long, Entry<T>> unfinished = new LinkedHashMap<>();
+        try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            String line;
+            while((line = reader.readLine()) != null)
+            {
+                JsonNode record;
+                try
+                {
+                    record = objectMapper.readTree(line);
+                }
+                catch(IOException e)
+                {
+                    events.postEvent(EventType.DEBUG, () -> "ignoring damaged line in " + path.getFileName());
+                    continue;
+                }
+                if(record == null || !record.path("id").canConvertToLong())
+                {
+                    continue;
+                }
+                
+                long id = record.get("id").asLong();
+                nextId = Math.max(nextId, id + 1);
+                Entry<T> entry = unfinished.get(id);
+                switch(record.path("op").asText())
+                {
+                    case OP_ENQUEUE:
+                        try
+                        {
+                            unfinished.put(id, new Entry<>(id, objectMapper.treeToValue(record.get("job"), jobType)));
+                        }
+                        catch(IOException e)
+                        {
+                            events.postEvent(EventType.DEBUG, () -> String.format("dropping unreadable job %d in %s",
+                                                                                  id, path.getFileName()));
+                        }
+                        break;
+                    case OP_START:
+                        if(entry != null)
+                        {
+                            entry.started = true;
+                        }
+                        break;
+                    case OP_PROGRESS:
+                        if(entry != null)
+                        {
+                            entry.progress = record.path("fraction").asDouble();
+                        }
+                        break;
+                    case OP_FINISH:
+                        unfinished.remove(id);
+                        break;
+                }
+            }
+        }
+        catch(NoSuchFileException e)
+        {
+            // nothing's been queued before
+        }
+        return unfinished;
+    }
+    
+    // every line is written and forced straight away, since the point is to survive the app going away at any moment
+    private void append(ObjectNode record) throws IOException
+    {
+        file.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+        file.getFD().sync();
+    }
+    
+    private ObjectNode newRecord(String op, long id)
+    {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", op);
+        record.put("id", id);
+        return record;
+    }
+    
+    public static class Entry<T>
+    {
+        private final long id;
+        private final T job;
+        private boolean started;
+        private double progress;
+        
+        private Entry(long id, T job)
+        {
+            this.id = id;
+            this.job = job;
+        }
+        
+        public long getId()
+        {
+            return id;
+        }
+        
+        public T getJob()
+        {
+            return job;
+        }
+        
+        // if it was, whatever it was writing may be left half done
+        public boolean wasStarted()
+        {
+            return started;
+        }
+        
+        public double getProgress()
+        {
+            return progress;
+        }
+    }
+}
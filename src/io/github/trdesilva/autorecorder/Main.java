@@ -11,6 +11,7 @@ import com.google.common.collect.Sets;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventLogWriter;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.record.GameListener;
@@ -44,6 +45,7 @@ public class Main
         {
             isDebugMode = true;
         }
+        Event.setCaptureAllSources(isDebugMode);
     
         try
         {
@@ -56,6 +58,8 @@ public class Main
         
         LoadingWindow loadingWindow = new LoadingWindow();
         Injector injector = Guice.createInjector(new VideoModule(), new GuiModule(isDebugMode));
+        // registered first so it picks up everything posted during startup
+        injector.getInstance(EventLogWriter.class);
         
         Settings settings = injector.getInstance(Settings.class);
         settings.populate();
@@ -64,7 +68,7 @@ public class Main
         
         if(!new File(settings.getFfmpegPath()).exists())
         {
-            events.postEvent(new Event(EventType.DEBUG, "copying ffmpeg.exe from resources"));
+            events.postEvent(EventType.DEBUG, "copying ffmpeg.exe from resources");
             try
             {
                 Files.copy(ClassLoader.getSystemClassLoader().getResourceAsStream("ffmpeg.exe"),
@@ -72,12 +76,12 @@ public class Main
             }
             catch(IOException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to copy ffmpeg.exe"));
+                events.postEvent(EventType.DEBUG, "failed to copy ffmpeg.exe");
             }
         }
         if(!new File(settings.getFfprobePath()).exists())
         {
-            events.postEvent(new Event(EventType.DEBUG, "copying ffprobe.exe from resources"));
+            events.postEvent(EventType.DEBUG, "copying ffprobe.exe from resources");
             try
             {
                 Files.copy(ClassLoader.getSystemClassLoader().getResourceAsStream("ffprobe.exe"),
@@ -85,7 +89,7 @@ public class Main
             }
             catch(IOException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to copy ffprobe.exe"));
+                events.postEvent(EventType.DEBUG, "failed to copy ffprobe.exe");
             }
         }
         
@@ -14,6 +14,7 @@ import com.google.inject.Singleton;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
+import io.github.trdesilva.autorecorder.record.GameExecutableIndex;
 import io.github.trdesilva.autorecorder.video.Hotkey;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -26,8 +27,10 @@ import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -57,6 +60,16 @@ public class Settings
         
         public boolean autoDeleteEnabled = false;
         public int autoDeleteThresholdGB = 100;
+        public boolean autoDeleteKeepBookmarked = false;
+        public boolean autoDeleteKeepClipped = false;
+        public int autoDeleteMinimumAgeDays = 0;
+        public Map<String, Integer> autoDeleteGameQuotasGB = new HashMap<>();
+        
+        public boolean recompressionEnabled = false;
+        public int recompressionAgeDays = 7;
+        
+        // 0 picks a number based on how many cores there are
+        public int clipWorkers = 0;
         
         public boolean bookmarksEnabled = false;
         public Hotkey bookmarkKey = new Hotkey();
@@ -65,12 +78,20 @@ public class Settings
         public String obsProfileName = "Untitled";
         public boolean overrideObsNameFormat = false;
         
+        public boolean metadataWriteBehindEnabled = false;
+        // off until joined clips are known to play everywhere; the copied middle keeps the recording's SPS/PPS in-band
+        // while MP4 only carries the re-encoded edges' in its header
+        public boolean smartCutEnabled = false;
+        // off until it's had more use; long clips are split across several encodes, joined afterwards
+        public boolean chunkedEncodingEnabled = false;
+        
     }
     
     private final EventQueue events;
     
     private final ObjectMapper objectMapper;
     private SettingsContainer container;
+    private volatile GameExecutableIndex gameIndex;
     
     @Inject
     public Settings(EventQueue events)
@@ -80,6 +101,7 @@ public class Settings
         objectMapper = new ObjectMapper();
         
         container = new SettingsContainer();
+        gameIndex = GameExecutableIndex.EMPTY;
         settingsFile = new File(SETTINGS_DIR.resolve("settings.json").toString());
     }
     
@@ -92,11 +114,11 @@ public class Settings
         }
         else
         {
-            events.postEvent(new Event(EventType.DEBUG, "Loading settings"));
+            events.postEvent(EventType.DEBUG, "Loading settings");
             try
             {
                 container = objectMapper.readValue(settingsFile, SettingsContainer.class);
-                events.postEvent(new Event(EventType.DEBUG, "Settings loaded"));
+                events.postEvent(EventType.DEBUG, "Settings loaded");
             }
             catch(IOException e)
             {
@@ -111,13 +133,17 @@ public class Settings
             save();
             events.postEvent(new Event(EventType.SUCCESS, "Settings saved"));
         }
+        else
+        {
+            rebuildGameIndex();
+        }
     }
     
     public void save()
     {
         if(!settingsFile.getParentFile().exists())
         {
-            events.postEvent(new Event(EventType.DEBUG, "settings dir missing; creating"));
+            events.postEvent(EventType.DEBUG, "settings dir missing; creating");
             settingsFile.getParentFile().mkdirs();
             settingsFile.getParentFile().setReadable(true);
             settingsFile.getParentFile().setWritable(true);
@@ -125,15 +151,19 @@ public class Settings
         
         try
         {
-            container.games.addAll(container.additionalGames);
-            container.games.removeAll(container.excludedGames);
+            synchronized(container.games)
+            {
+                container.games.addAll(container.additionalGames);
+                container.games.removeAll(container.excludedGames);
+            }
+            rebuildGameIndex();
             objectMapper.writerWithDefaultPrettyPrinter().writeValue(settingsFile, container);
             events.postEvent(new Event(EventType.SETTINGS_CHANGE, "Settings saved"));
         }
         catch(IOException e)
         {
             events.postEvent(new Event(EventType.FAILURE, "Failed to save settings"));
-            events.postEvent(new Event(EventType.DEBUG, e.getMessage()));
+            events.postEvent(EventType.DEBUG, e::getMessage);
         }
     }
     
@@ -195,6 +225,11 @@ public class Settings
         }
     }
     
+    public GameExecutableIndex getGameIndex()
+    {
+        return gameIndex;
+    }
+    
     public Set<String> getExcludedGames()
     {
         return container.excludedGames;
@@ -207,6 +242,7 @@ public class Settings
         {
             container.games.removeAll(container.excludedGames);
         }
+        rebuildGameIndex();
     }
     
     public Set<String> getAdditionalGames()
@@ -227,6 +263,12 @@ public class Settings
             container.games.addAll(container.additionalGames);
             container.games.removeAll(container.excludedGames); //excluded has priority over additional
         }
+        rebuildGameIndex();
+    }
+    
+    public long getLastFetchedGamesTimestamp()
+    {
+        return container.lastFetchedGamesTimestamp;
     }
     
     public boolean isAutoDeleteEnabled()
@@ -249,6 +291,72 @@ public class Settings
         this.container.autoDeleteThresholdGB = autoDeleteThresholdGB;
     }
     
+    public boolean isAutoDeleteKeepBookmarkedEnabled()
+    {
+        return container.autoDeleteKeepBookmarked;
+    }
+    
+    public void setAutoDeleteKeepBookmarkedEnabled(boolean keepBookmarked)
+    {
+        this.container.autoDeleteKeepBookmarked = keepBookmarked;
+    }
+    
+    public boolean isAutoDeleteKeepClippedEnabled()
+    {
+        return container.autoDeleteKeepClipped;
+    }
+    
+    public void setAutoDeleteKeepClippedEnabled(boolean keepClipped)
+    {
+        this.container.autoDeleteKeepClipped = keepClipped;
+    }
+    
+    public int getAutoDeleteMinimumAgeDays()
+    {
+        return container.autoDeleteMinimumAgeDays;
+    }
+    
+    public void setAutoDeleteMinimumAgeDays(int minimumAgeDays)
+    {
+        this.container.autoDeleteMinimumAgeDays = minimumAgeDays;
+    }
+    
+    // keyed by game name as it appears in recordings' metadata; only editable in the settings file for now
+    public Map<String, Integer> getAutoDeleteGameQuotasGB()
+    {
+        return container.autoDeleteGameQuotasGB;
+    }
+    
+    public boolean isRecompressionEnabled()
+    {
+        return container.recompressionEnabled;
+    }
+    
+    public void setRecompressionEnabled(boolean recompressionEnabled)
+    {
+        this.container.recompressionEnabled = recompressionEnabled;
+    }
+    
+    public int getRecompressionAgeDays()
+    {
+        return container.recompressionAgeDays;
+    }
+    
+    public void setRecompressionAgeDays(int recompressionAgeDays)
+    {
+        this.container.recompressionAgeDays = recompressionAgeDays;
+    }
+    
+    public int getClipWorkers()
+    {
+        return container.clipWorkers;
+    }
+    
+    public void setClipWorkers(int clipWorkers)
+    {
+        this.container.clipWorkers = clipWorkers;
+    }
+    
     public boolean areBookmarksEnabled()
     {
         return container.bookmarksEnabled;
@@ -299,6 +407,36 @@ public class Settings
         this.container.overrideObsNameFormat = enable;
     }
     
+    public boolean isMetadataWriteBehindEnabled()
+    {
+        return this.container.metadataWriteBehindEnabled;
+    }
+    
+    public void setMetadataWriteBehindEnabled(boolean enable)
+    {
+        this.container.metadataWriteBehindEnabled = enable;
+    }
+    
+    public boolean isSmartCutEnabled()
+    {
+        return this.container.smartCutEnabled;
+    }
+    
+    public void setSmartCutEnabled(boolean enable)
+    {
+        this.container.smartCutEnabled = enable;
+    }
+    
+    public boolean isChunkedEncodingEnabled()
+    {
+        return this.container.chunkedEncodingEnabled;
+    }
+    
+    public void setChunkedEncodingEnabled(boolean enable)
+    {
+        this.container.chunkedEncodingEnabled = enable;
+    }
+    
     public String getSettingsFilePath()
     {
         return settingsFile.getAbsolutePath();
@@ -309,6 +447,15 @@ public class Settings
         return original.toLowerCase().replace("/", FileSystems.getDefault().getSeparator());
     }
     
+    private void rebuildGameIndex()
+    {
+        synchronized(container.games)
+        {
+            gameIndex = GameExecutableIndex.build(container.games);
+        }
+        events.postEvent(EventType.DEBUG, () -> "Indexed game executables: " + gameIndex.size());
+    }
+    
     private void populateGamesFromApi()
     {
         try
@@ -320,7 +467,7 @@ public class Settings
             response = client.execute(new HttpGet("https://discord.com/api/v10/applications/detectable"));
             
             JsonNode root = new ObjectMapper().readTree(response.getEntity().getContent());
-            events.postEvent(new Event(EventType.DEBUG, "got games from discord API: " + root.size()));
+            events.postEvent(EventType.DEBUG, () -> "got games from discord API: " + root.size());
             synchronized(container.games)
             {
                 for(Iterator<JsonNode> gameIter = root.elements(); gameIter.hasNext(); )
@@ -340,7 +487,7 @@ public class Settings
                     }
                     
                 }
-                events.postEvent(new Event(EventType.DEBUG,"got executables: " + container.games.size()));
+                events.postEvent(EventType.DEBUG, () -> "got executables: " + container.games.size());
                 container.lastFetchedGamesTimestamp = DateTime.now().getMillis();
             }
         }
@@ -15,6 +15,7 @@ import io.github.trdesilva.autorecorder.video.Hotkey;
 
 import java.io.File;
 import java.util.Collections;
+import java.util.Map;
 
 public class SettingsValidator
 {
@@ -95,6 +96,39 @@ public class SettingsValidator
             return false;
         }
         
+        for(Map.Entry<String, Integer> quota: settings.autoDeleteGameQuotasGB.entrySet())
+        {
+            if(quota.getKey() == null || quota.getKey().isBlank())
+            {
+                events.postEvent(new Event(EventType.WARNING, "Recording space limits must each name a game"));
+                return false;
+            }
+            if(quota.getValue() == null || quota.getValue() < 0)
+            {
+                events.postEvent(new Event(EventType.WARNING, "Recording space limit for " + quota.getKey()
+                        + " must be a non-negative integer"));
+                return false;
+            }
+        }
+        
+        if(settings.autoDeleteMinimumAgeDays < 0)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Minimum recording age must be a non-negative integer"));
+            return false;
+        }
+        
+        if(settings.recompressionAgeDays < 0)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Recompression age must be a non-negative integer"));
+            return false;
+        }
+        
+        if(settings.clipWorkers < 0)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Number of clips to make at once must be a non-negative integer"));
+            return false;
+        }
+        
         if(settings.bookmarksEnabled && settings.bookmarkKey.getKeyCode() == Hotkey.UNSET)
         {
             events.postEvent(new Event(EventType.WARNING, "Bookmark hotkey must be set if bookmarking is enabled"));
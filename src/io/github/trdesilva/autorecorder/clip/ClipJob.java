@@ -5,6 +5,9 @@
 
 package io.github.trdesilva.autorecorder.clip;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,6 +40,19 @@ public class ClipJob
         this.segmented = true;
     }
     
+    // for reading jobs back out of the queue's journal
+    @JsonCreator
+    ClipJob(@JsonProperty("source") String source, @JsonProperty("dest") String dest,
+            @JsonProperty("startArgs") List<String> startArgs, @JsonProperty("endArgs") List<String> endArgs,
+            @JsonProperty("segmented") boolean segmented)
+    {
+        this.source = source;
+        this.dest = dest;
+        this.startArgs = new LinkedList<>(startArgs);
+        this.endArgs = new LinkedList<>(endArgs);
+        this.segmented = segmented;
+    }
+    
     public String getSource()
     {
         return source;
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.clip;
+
+import io.github.trdesilva.autorecorder.TimestampUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// how far along a clip is, over all the ffmpeg runs it takes to make it
+public class ClipProgress
+{
+    private final double fraction;
+    private final double speed;
+    private final long etaMillis;
+    
+    ClipProgress(double fraction, double speed, long etaMillis)
+    {
+        this.fraction = fraction;
+        this.speed = speed;
+        this.etaMillis = etaMillis;
+    }
+    
+    public int getPercent()
+    {
+        return (int) Math.floor(fraction * 100);
+    }
+    
+    public double getFraction()
+    {
+        return fraction;
+    }
+    
+    // clip time per wall clock time of the current ffmpeg run, or NaN if it isn't known yet
+    public double getSpeed()
+    {
+        return speed;
+    }
+    
+    // -1 until there's enough done to guess
+    public long getEtaMillis()
+    {
+        return etaMillis;
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder().append(getPercent()).append('%');
+        if(!Double.isNaN(speed))
+        {
+            text.append(String.format(" at %.1fx", speed));
+        }
+        if(etaMillis >= 0)
+        {
+            // formatTime shows anything under a second as N/A
+            text.append(", ").append(etaMillis >= 1000 ? TimestampUtil.formatTime(etaMillis) : "0:00:00").append(" left");
+        }
+        return text.toString();
+    }
+    
+    // turns the progress of each ffmpeg run that goes into a clip into progress through the whole clip. the runs can
+    // follow one another or go at the same time, as long as each writes a different part of it
+    static class Tracker
+    {
+        private final long totalMillis;
+        private final Consumer<ClipProgress> listener;
+        private final long startNanos;
+        
+        // guarded by this, one of each per run
+        private final List<Long> runMillis;
+        private final List<Long> doneMillis;
+        private final List<Double> speeds;
+        
+        Tracker(long totalMillis, Consumer<ClipProgress> listener)
+        {
+            this.totalMillis = Math.max(1, totalMillis);
+            this.listener = listener;
+            startNanos = System.nanoTime();
+            runMillis = new ArrayList<>();
+            doneMillis = new ArrayList<>();
+            speeds = new ArrayList<>();
+        }
+        
+        // null if nobody's listening, which leaves ffmpeg's progress reporting off
+        synchronized Consumer<FfmpegProgress> forRun(long millis)
+        {
+            if(listener == null)
+            {
+                return null;
+            }
+            int run = runMillis.size();
+            runMillis.add(millis);
+            doneMillis.add(0L);
+            speeds.add(Double.NaN);
+            return progress -> report(run, progress);
+        }
+        
+        // synchronized all the way through so runs going at the same time can't report out of order
+        private synchronized void report(int run, FfmpegProgress progress)
+        {
+            // the last report can fall a frame short of the run's length
+            doneMillis.set(run, progress.isFinished()
+                                ? runMillis.get(run)
+                                : Math.min(progress.getOutTimeMillis(), runMillis.get(run)));
+            speeds.set(run, progress.isFinished() ? Double.NaN : progress.getSpeed());
+            
+            long done = 0;
+            for(long millis: doneMillis)
+            {
+                done += millis;
+            }
+            double fraction = Math.min(1, done / (double) totalMillis);
+            // runs going at the same time add up; once they've all finished, the last one's speed is kept
+            double speed = speeds.stream().filter(runSpeed -> !Double.isNaN(runSpeed))
+                                 .reduce(Double::sum).orElse(progress.getSpeed());
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+            // from the average so far, since each run goes at a very different speed
+            long etaMillis = fraction > 0.01 ? (long) (elapsedMillis * (1 - fraction) / fraction) : -1;
+            listener.accept(new ClipProgress(fraction, speed, etaMillis));
+        }
+    }
+}
@@ -5,108 +5,437 @@
 
 package io.github.trdesilva.autorecorder.clip;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.github.trdesilva.autorecorder.JobJournal;
+import io.github.trdesilva.autorecorder.Settings;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+// makes queued clips on a pool of workers, highest priority first and otherwise in the order they were queued. each
+// ffmpeg run gets an even share of the cores, so a batch of clips keeps the machine busy without the encodes fighting
+// over it. jobs are journaled, so any that are still queued or running when the app closes are made on the next start
 @Singleton
 public class ClipQueue implements AutoCloseable
 {
+    public enum Priority
+    {
+        LOW,
+        NORMAL,
+        HIGH
+    }
+    
+    // x264 scales well up to about this many threads per encode, so past it more clips at once is the better use
+    private static final int THREADS_PER_WORKER = 4;
+    private static final long NOT_JOURNALED = -1;
+    // how long closing waits for workers to clean up after the clips they were making
+    private static final long STOP_WAIT_MILLIS = 5000;
+    // progress is only journaled in steps this big, since every journal write is forced to disk
+    private static final double JOURNAL_PROGRESS_STEP = 0.1;
+    
     private final ClipTrimmer trimmer;
     private final EventQueue events;
     private final ClipJobValidator validator;
+    private final Settings settings;
     
-    private final ConcurrentLinkedQueue<ClipJob> jobs;
-    private final Semaphore semaphore;
-    private Thread clippingThread;
+    private final PriorityBlockingQueue<Handle> jobs;
+    private final AtomicLong sequence;
+    private final JobJournal<JournaledClip> journal;
+    private final List<Thread> workers;
+    private int threadsPerJob;
+    private final AtomicInteger runningJobs;
+    private volatile boolean stopping;
     
     @Inject
-    public ClipQueue(ClipTrimmer trimmer, EventQueue events, ClipJobValidator validator)
+    public ClipQueue(ClipTrimmer trimmer, EventQueue events, ClipJobValidator validator, Settings settings)
     {
         this.trimmer = trimmer;
         this.events = events;
         this.validator = validator;
+        this.settings = settings;
+        
+        jobs = new PriorityBlockingQueue<>();
+        sequence = new AtomicLong();
+        runningJobs = new AtomicInteger();
+        workers = new ArrayList<>();
+        journal = new JobJournal<>(Settings.SETTINGS_DIR.resolve("clipJobs.journal"), JournaledClip.class, events);
+    }
+    
+    public Handle enqueue(ClipJob clipJob)
+    {
+        return enqueue(clipJob, Priority.NORMAL);
+    }
+    
+    public Handle enqueue(ClipJob clipJob, Priority priority)
+    {
+        long journalId = NOT_JOURNALED;
+        try
+        {
+            journalId = journal.enqueued(new JournaledClip(clipJob, priority));
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Couldn't journal clip job, so it won't survive a restart: " + e.getMessage());
+        }
+        return offer(clipJob, priority, journalId);
+    }
+    
+    private Handle offer(ClipJob clipJob, Priority priority, long journalId)
+    {
+        Handle handle = new Handle(clipJob, priority, sequence.getAndIncrement(), journalId);
+        jobs.offer(handle);
+        return handle;
+    }
+    
+    public synchronized void startProcessing()
+    {
+        if(workers.stream().anyMatch(Thread::isAlive))
+        {
+            return;
+        }
+        workers.clear();
+        stopping = false;
+        resumeJournaledJobs();
         
-        jobs = new ConcurrentLinkedQueue<>();
-        semaphore = new Semaphore(0);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workerCount = settings.getClipWorkers() > 0
+                          ? settings.getClipWorkers()
+                          : Math.max(1, cores / THREADS_PER_WORKER);
+        threadsPerJob = Math.max(1, cores / workerCount);
+        events.postEvent(EventType.DEBUG, () -> String.format("Making up to %d clips at once with %d threads each",
+                                                              workerCount, threadsPerJob));
+        for(int i = 0; i < workerCount; i++)
+        {
+            Thread worker = new Thread(this::work);
+            worker.setName("Clipping thread " + i);
+            worker.start();
+            workers.add(worker);
+        }
     }
     
-    public synchronized void enqueue(ClipJob clipJob)
+    public boolean hasRunningJobs()
     {
-        jobs.offer(clipJob);
-        semaphore.release(1);
+        return runningJobs.get() > 0;
+    }
+    
+    public synchronized void stopProcessing()
+    {
+        stopping = true;
+        for(Thread worker: workers)
+        {
+            worker.interrupt();
+        }
+    }
+    
+    @Override
+    public void close() throws Exception
+    {
+        stopProcessing();
+        long deadline = System.currentTimeMillis() + STOP_WAIT_MILLIS;
+        for(Thread worker: workers)
+        {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        journal.close();
+    }
+    
+    private void resumeJournaledJobs()
+    {
+        List<JobJournal.Entry<JournaledClip>> unfinished;
+        try
+        {
+            unfinished = journal.takeRecovered();
+        }
+        catch(IOException e)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Couldn't read clips left over from last time"));
+            events.postEvent(EventType.DEBUG, e::getMessage);
+            return;
+        }
+        
+        for(JobJournal.Entry<JournaledClip> entry: unfinished)
+        {
+            ClipJob job = entry.getJob().job;
+            // whatever was being written was cut off, so it's made again from scratch
+            if(entry.wasStarted())
+            {
+                trimmer.deleteClip(job.getDest());
+            }
+            offer(job, entry.getJob().priority, entry.getId());
+        }
+        if(!unfinished.isEmpty())
+        {
+            events.postEvent(new Event(EventType.INFO, String.format("Resuming %d unfinished clips", unfinished.size())));
+        }
+    }
+    
+    private void journal(Handle handle, boolean finished)
+    {
+        if(handle.journalId == NOT_JOURNALED)
+        {
+            return;
+        }
+        try
+        {
+            if(finished)
+            {
+                journal.finished(handle.journalId);
+            }
+            else
+            {
+                journal.started(handle.journalId);
+            }
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Couldn't journal clip job: " + e.getMessage());
+        }
     }
     
-    public void startProcessing()
+    // with nothing else waiting, the clips that are running share the idle workers' threads too, which a long clip can
+    // use by being encoded in chunks
+    private int getThreads()
     {
-        if(clippingThread == null || !clippingThread.isAlive())
+        if(!jobs.isEmpty())
         {
-            clippingThread = new Thread(() -> {
-                while(true)
+            return threadsPerJob;
+        }
+        return Math.max(threadsPerJob, Runtime.getRuntime().availableProcessors() / Math.max(1, runningJobs.get()));
+    }
+    
+    // called from ffmpeg's output pump while the clip is being made
+    private void reportProgress(Handle handle, ClipProgress progress)
+    {
+        Map<EventProperty, Object> properties = new EnumMap<>(EventProperty.class);
+        properties.put(EventProperty.CLIP_JOB, handle.getJob());
+        properties.put(EventProperty.CLIP_PROGRESS, progress);
+        events.postEvent(new Event(EventType.CLIP_PROGRESS, "Clipping " + handle.getJob().getDest() + ": " + progress,
+                                   properties));
+        
+        if(handle.journalId != NOT_JOURNALED
+                && progress.getFraction() >= handle.journaledProgress + JOURNAL_PROGRESS_STEP)
+        {
+            handle.journaledProgress = progress.getFraction();
+            try
+            {
+                journal.progressed(handle.journalId, progress.getFraction());
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> "Couldn't journal clip progress: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void work()
+    {
+        while(!stopping)
+        {
+            Handle handle;
+            try
+            {
+                handle = jobs.take();
+            }
+            catch(InterruptedException e)
+            {
+                return;
+            }
+            if(!handle.start())
+            {
+                // cancelled while it was queued; cancel couldn't take it out of the queue since it was already taken
+                journal(handle, true);
+                continue;
+            }
+            
+            ClipJob job = handle.getJob();
+            runningJobs.incrementAndGet();
+            journal(handle, false);
+            // only false when the app is closing, which leaves the job to be made next time
+            boolean finished = true;
+            try
+            {
+                if(validator.validate(job))
                 {
-                    try
-                    {
-                        semaphore.acquire();
-                    }
-                    catch(InterruptedException e)
-                    {
-                        return;
-                    }
-                    ClipJob job = jobs.poll();
-                    try
+                    events.postEvent(new Event(EventType.INFO, "Saving clip: " + job.getDest()));
+                    events.postEvent(new Event(EventType.CLIP_START, "Clipping " + job.getDest(), Collections.singletonMap(
+                            EventProperty.CLIP_JOB, job)));
+                    Consumer<ClipProgress> progressListener = progress -> reportProgress(handle, progress);
+                    if(!job.isSegmented())
                     {
-                        if(validator.validate(job))
-                        {
-                            events.postEvent(new Event(EventType.INFO, "Saving clip: " + job.getDest()));
-                            events.postEvent(new Event(EventType.CLIP_START, "Clipping " + job.getDest(), Collections.singletonMap(
-                                    EventProperty.CLIP_JOB, job)));
-                            if(!job.isSegmented())
-                            {
-                                trimmer.makeClip(job.getSource(), job.getDest(), job.getStartArgs().get(0), job.getEndArgs().get(0));
-                            }
-                            else
-                            {
-                                trimmer.makeSegmentedClip(job.getSource(), job.getDest(), job.getStartArgs(), job.getEndArgs());
-                            }
-                            events.postEvent(new Event(EventType.SUCCESS, "Clip created: " + job.getDest()));
-                            events.postEvent(new Event(EventType.CLIP_END, "Created clip " + job.getDest(), Collections.singletonMap(
-                                    EventProperty.CLIP_JOB, job)));
-                        }
+                        trimmer.makeClip(job.getSource(), job.getDest(), job.getStartArgs().get(0), job.getEndArgs().get(0), getThreads(), progressListener);
                     }
-                    catch(Exception e)
+                    else
                     {
-                        events.postEvent(
-                                new Event(EventType.FAILURE, "Failed to create clip: " + job.getDest()));
-                        events.postEvent(new Event(EventType.DEBUG, e.getMessage()));
-                        events.postEvent(new Event(EventType.CLIP_END, "", Collections.singletonMap(
-                                EventProperty.CLIP_JOB, job)));
+                        trimmer.makeSegmentedClip(job.getSource(), job.getDest(), job.getStartArgs(), job.getEndArgs(), getThreads(), progressListener);
                     }
+                    // straight away, so closing from here on can't make it again
+                    journal(handle, true);
+                    events.postEvent(new Event(EventType.SUCCESS, "Clip created: " + job.getDest()));
+                    events.postEvent(new Event(EventType.CLIP_END, "Created clip " + job.getDest(), Collections.singletonMap(
+                            EventProperty.CLIP_JOB, job)));
                 }
-            });
-            clippingThread.setName("Clipping thread");
-            clippingThread.start();
+            }
+            catch(InterruptedException e)
+            {
+                trimmer.deleteClip(job.getDest());
+                if(!handle.isCancelled())
+                {
+                    finished = false;
+                    continue;
+                }
+                events.postEvent(new Event(EventType.INFO, "Clip cancelled: " + job.getDest()));
+                events.postEvent(new Event(EventType.CLIP_END, "", Collections.singletonMap(
+                        EventProperty.CLIP_JOB, job)));
+            }
+            catch(Exception e)
+            {
+                events.postEvent(
+                        new Event(EventType.FAILURE, "Failed to create clip: " + job.getDest()));
+                events.postEvent(EventType.DEBUG, e::getMessage);
+                events.postEvent(new Event(EventType.CLIP_END, "", Collections.singletonMap(
+                        EventProperty.CLIP_JOB, job)));
+            }
+            finally
+            {
+                if(finished)
+                {
+                    journal(handle, true);
+                }
+                runningJobs.decrementAndGet();
+                handle.finish();
+            }
         }
     }
     
-    public void stopProcessing()
+    // what's journaled for each job
+    private static class JournaledClip
     {
-        if(clippingThread != null && clippingThread.isAlive())
+        private final ClipJob job;
+        private final Priority priority;
+        
+        @JsonCreator
+        JournaledClip(@JsonProperty("job") ClipJob job, @JsonProperty("priority") Priority priority)
+        {
+            this.job = job;
+            this.priority = priority != null ? priority : Priority.NORMAL;
+        }
+        
+        @JsonProperty
+        ClipJob getJob()
+        {
+            return job;
+        }
+        
+        @JsonProperty
+        Priority getPriority()
         {
-            clippingThread.interrupt();
+            return priority;
         }
     }
     
-    @Override
-    public void close() throws Exception
+    // returned for each queued clip, for cancelling it
+    public class Handle implements Comparable<Handle>
     {
-        stopProcessing();
+        private final ClipJob job;
+        private final Priority priority;
+        private final long sequence;
+        private final long journalId;
+        // only touched by its progress reports, which come one at a time
+        private double journaledProgress;
+        
+        // guarded by this
+        private Thread worker;
+        private boolean cancelled;
+        private boolean finished;
+        
+        private Handle(ClipJob job, Priority priority, long sequence, long journalId)
+        {
+            this.job = job;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.journalId = journalId;
+        }
+        
+        public ClipJob getJob()
+        {
+            return job;
+        }
+        
+        public Priority getPriority()
+        {
+            return priority;
+        }
+        
+        public synchronized boolean isCancelled()
+        {
+            return cancelled;
+        }
+        
+        // stops the clip being made, whether it's started or not. returns false if it's already been made
+        public boolean cancel()
+        {
+            synchronized(this)
+            {
+                if(finished)
+                {
+                    return false;
+                }
+                cancelled = true;
+                if(worker != null)
+                {
+                    // the running ffmpeg is killed when its wait is interrupted
+                    worker.interrupt();
+                    return true;
+                }
+            }
+            jobs.remove(this);
+            // so it isn't made after a restart either
+            journal(this, true);
+            return true;
+        }
+        
+        @Override
+        public int compareTo(Handle other)
+        {
+            int byPriority = other.priority.compareTo(priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+        
+        // false if it was cancelled before it got to a worker
+        private synchronized boolean start()
+        {
+            if(cancelled)
+            {
+                return false;
+            }
+            worker = Thread.currentThread();
+            return true;
+        }
+        
+        private void finish()
+        {
+            synchronized(this)
+            {
+                worker = null;
+                finished = true;
+            }
+            // a cancel that came in just as the clip finished mustn't carry over to the worker's next clip
+            Thread.interrupted();
+        }
     }
 }
@@ -19,26 +19,36 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ClipTrimmer
 {
+    // long clips that have to be re-encoded are split into chunks of at least this long, one per this many threads,
+    // and the chunks encoded at the same time
+    private static final long MIN_CHUNK_MILLIS = 30000;
+    private static final int THREADS_PER_CHUNK = 4;
+    
     private final FfmpegHelper ffmpegHelper;
+    private final SmartCutter smartCutter;
+    private final Settings settings;
     private final VideoListHandler clipListHandler;
     private final VideoListHandler recordingListHandler;
     private final EventQueue events;
     
     @Inject
-    public ClipTrimmer(FfmpegHelper ffmpegHelper, @Named("CLIP") VideoListHandler clipListHandler,
+    public ClipTrimmer(FfmpegHelper ffmpegHelper, SmartCutter smartCutter, Settings settings,
+                       @Named("CLIP") VideoListHandler clipListHandler,
                        @Named("RECORDING") VideoListHandler recordingListHandler, EventQueue events)
     {
         this.ffmpegHelper = ffmpegHelper;
+        this.smartCutter = smartCutter;
+        this.settings = settings;
         this.clipListHandler = clipListHandler;
         this.recordingListHandler = recordingListHandler;
         this.events = events;
@@ -54,11 +64,18 @@ public class ClipTrimmer
         String endArg = String.format("%02d:%02d:%02d.%03d", endDuration.toHoursPart(), endDuration.toMinutesPart(),
                                       endDuration.toSecondsPart(), endDuration.toMillisPart());
         
-        makeClip(source, dest, startArg, endArg);
+        makeClip(source, dest, startArg, endArg, 0, null);
     }
     
     public void makeClip(String source, String dest, String startArg, String endArg) throws IOException,
                                                                                             InterruptedException
+    {
+        makeClip(source, dest, startArg, endArg, 0, null);
+    }
+    
+    // threads limits each encode; 0 leaves it to ffmpeg. progressListener may be null
+    public void makeClip(String source, String dest, String startArg, String endArg, int threads,
+                         Consumer<ClipProgress> progressListener) throws IOException, InterruptedException
     {
         File sourceFile = recordingListHandler.getVideo(source);
         File destFile = clipListHandler.getVideo(dest);
@@ -73,11 +90,59 @@ public class ClipTrimmer
             throw new IOException("Destination already exists");
         }
         
+        long startMillis = TimestampUtil.parseTime(startArg);
+        long endMillis = TimestampUtil.parseTime(endArg);
+        if(startMillis >= 0 && endMillis > startMillis)
+        {
+            if(settings.isSmartCutEnabled())
+            {
+                try
+                {
+                    if(smartCutter.cut(sourceFile, destFile, startMillis, endMillis, threads, progressListener))
+                    {
+                        return;
+                    }
+                }
+                catch(IOException e)
+                {
+                    events.postEvent(EventType.DEBUG, () -> "Smart cut failed, re-encoding whole clip: " + e.getMessage());
+                    destFile.delete();
+                }
+            }
+            
+            int chunkCount = settings.isChunkedEncodingEnabled() ? getChunkCount(endMillis - startMillis, threads) : 1;
+            if(chunkCount > 1)
+            {
+                try
+                {
+                    if(smartCutter.encodeChunked(sourceFile, destFile, startMillis, endMillis, chunkCount, threads,
+                                                 progressListener))
+                    {
+                        return;
+                    }
+                }
+                catch(IOException e)
+                {
+                    // an encode that was stopped isn't one to make again some other way
+                    if(Thread.interrupted())
+                    {
+                        destFile.delete();
+                        throw new InterruptedException();
+                    }
+                    events.postEvent(EventType.DEBUG, () -> "Chunked encode failed, re-encoding in one go: " + e.getMessage());
+                    destFile.delete();
+                }
+            }
+        }
+        
         List<String> ffmpegArgs = getSingleClipArgs(sourceFile.getAbsolutePath(), destFile.getAbsolutePath(), startArg, endArg, true);
-        ffmpegHelper.runFfmpeg(ffmpegArgs);
+        addThreadsArg(ffmpegArgs, threads);
+        long clipMillis = endMillis - startMillis;
+        ffmpegHelper.runFfmpeg(ffmpegArgs, new ClipProgress.Tracker(clipMillis, progressListener).forRun(clipMillis));
     }
     
-    public void makeSegmentedClip(String source, String dest, List<String> startArgs, List<String> endArgs) throws IOException, InterruptedException
+    public void makeSegmentedClip(String source, String dest, List<String> startArgs, List<String> endArgs, int threads,
+                                  Consumer<ClipProgress> progressListener) throws IOException, InterruptedException
     {
         File sourceFile = recordingListHandler.getVideo(source);
         File destFile = clipListHandler.getVideo(dest);
@@ -92,38 +157,87 @@ public class ClipTrimmer
             throw new IOException("Destination already exists");
         }
         
+        // validator should have already verified that startArgs and endArgs are the same size
+        List<Long> startMillis = new ArrayList<>();
+        List<Long> endMillis = new ArrayList<>();
+        boolean timesValid = true;
+        for(int i = 0; i < startArgs.size(); i++)
+        {
+            startMillis.add(TimestampUtil.parseTime(startArgs.get(i)));
+            endMillis.add(TimestampUtil.parseTime(endArgs.get(i)));
+            timesValid &= startMillis.get(i) >= 0 && endMillis.get(i) > startMillis.get(i);
+        }
+        
+        if(timesValid)
+        {
+            try
+            {
+                if(smartCutter.copySegments(sourceFile, destFile, startMillis, endMillis, progressListener))
+                {
+                    return;
+                }
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> "Copying segments failed, re-encoding them: " + e.getMessage());
+                destFile.delete();
+            }
+        }
+        
+        // one input per segment, so each is seeked to directly instead of decoding everything before it, and one
+        // encode of the joined result
         List<String> segmentedClipArgs = new LinkedList<>();
         StringBuilder filterBuilder = new StringBuilder();
-        
+        long clipMillis = 0;
         for(int i = 0; i < startArgs.size(); i++)
         {
-            // validator should have already verified that startArgs and endArgs are the same size
-            String tempClipName = getTempClipName(destFile.getAbsolutePath(), i);
-            List<String> ffmpegArgs = getSingleClipArgs(sourceFile.getAbsolutePath(), tempClipName, startArgs.get(i), endArgs.get(i), true);
-            ffmpegHelper.runFfmpeg(ffmpegArgs);
-            segmentedClipArgs.add("-i");
-            segmentedClipArgs.add(tempClipName);
-            
+            clipMillis += endMillis.get(i) - startMillis.get(i);
+            String durationArg = TimestampUtil.formatTime(endMillis.get(i) - startMillis.get(i), true);
+            segmentedClipArgs.addAll(Arrays.asList("-ss", startArgs.get(i), "-t", durationArg, "-i", sourceFile.getAbsolutePath()));
             filterBuilder.append(String.format("[%d:v] [%d:a] ", i, i));
         }
-    
-        filterBuilder.append(String.format("concat=n=%d:v=1:a=1 [v] [a]", startArgs.size()));
-        segmentedClipArgs.addAll(Arrays.asList("-filter_complex", filterBuilder.toString(), "-map", "[v]", "-map", "[a]", destFile.getAbsolutePath()));
-        ffmpegHelper.runFfmpeg(segmentedClipArgs);
         
-        for(int i = 0; i < startArgs.size(); i++)
+        filterBuilder.append(String.format("concat=n=%d:v=1:a=1 [v] [a]", startArgs.size()));
+        segmentedClipArgs.addAll(Arrays.asList("-filter_complex", filterBuilder.toString(), "-map", "[v]", "-map", "[a]", "-vcodec", "libx264", "-acodec", "aac", destFile.getAbsolutePath()));
+        addThreadsArg(segmentedClipArgs, threads);
+        ffmpegHelper.runFfmpeg(segmentedClipArgs, new ClipProgress.Tracker(clipMillis, progressListener).forRun(clipMillis));
+    }
+    
+    private int getChunkCount(long clipMillis, int threads)
+    {
+        int totalThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return (int) Math.min(totalThreads / THREADS_PER_CHUNK, clipMillis / MIN_CHUNK_MILLIS);
+    }
+    
+    // output options have to come before the output file, which is always last
+    private void addThreadsArg(List<String> ffmpegArgs, int threads)
+    {
+        if(threads > 0)
         {
-            if(!Paths.get(getTempClipName(destFile.getAbsolutePath(), i)).toFile().delete())
-            {
-                events.postEvent(new Event(EventType.WARNING, "Failed to delete temporary clip segment file " + getTempClipName(destFile.getAbsolutePath(), i)));
-            }
+            ffmpegArgs.addAll(ffmpegArgs.size() - 1, Arrays.asList("-threads", Integer.toString(threads)));
         }
     }
     
-    private String getTempClipName(String dest, int number)
+    // for a clip that was stopped partway through, including by the app closing
+    public void deleteClip(String dest)
     {
-        Path destPath = Paths.get(dest);
-        return destPath.resolveSibling(String.format("temp%d_%s", number, destPath.getFileName())).toString();
+        File destFile = clipListHandler.getVideo(dest);
+        if(destFile == null)
+        {
+            return;
+        }
+        if(destFile.exists() && !destFile.delete())
+        {
+            events.postEvent(new Event(EventType.WARNING, "Failed to delete unfinished clip " + dest));
+        }
+        try
+        {
+            smartCutter.deleteTempFiles(destFile);
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Failed to delete temporary files for " + dest + ": " + e.getMessage());
+        }
     }
     
     private LinkedList<String> getSingleClipArgs(String sourceFilePath, String destFilePath, String startArg, String endArg)
@@ -5,63 +5,237 @@
 
 package io.github.trdesilva.autorecorder.clip;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.Settings;
-import org.apache.commons.io.IOUtils;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class FfmpegHelper
 {
     private final Settings settings;
+    private final ObjectMapper objectMapper;
     
     @Inject
     public FfmpegHelper(Settings settings)
     {
         this.settings = settings;
+        objectMapper = new ObjectMapper();
     }
     
     public void runFfmpeg(List<String> ffmpegArgs) throws IOException, InterruptedException
     {
+        runFfmpeg(ffmpegArgs, null);
+    }
+    
+    // progressListener gets ffmpeg's -progress reports as they come, roughly twice a second, on a thread of its own
+    public void runFfmpeg(List<String> ffmpegArgs, Consumer<FfmpegProgress> progressListener) throws IOException,
+                                                                                                  InterruptedException
+    {
+        if(progressListener != null)
+        {
+            ffmpegArgs.addAll(0, Arrays.asList("-progress", "pipe:1", "-nostats"));
+        }
         ffmpegArgs.add(0, settings.getFfmpegPath());
-        Process ffmpegProc = Runtime.getRuntime()
-                                    .exec(ffmpegArgs.toArray(new String[0]), null,
-                                          new File(Paths.get(settings.getFfmpegPath()).getParent().toString()));
-        InputStream stdout = ffmpegProc.getInputStream();
-        InputStream stderr = ffmpegProc.getErrorStream();
-        String ffmpegOutput = "";
-        String ffmpegError = "";
+        Process ffmpegProc = new ProcessBuilder(ffmpegArgs).directory(
+                new File(Paths.get(settings.getFfmpegPath()).getParent().toString())).start();
+        
+        // both pipes are drained the whole time ffmpeg runs, since it stalls as soon as either one fills; only the end
+        // of each is kept, which is all an error message needs
+        OutputTail stderr = new OutputTail();
+        Thread stderrPump = pump(ffmpegProc.getErrorStream(), stderr, "ffmpeg stderr pump");
+        Thread stdoutPump = pump(ffmpegProc.getInputStream(),
+                                 progressListener != null ? new ProgressParser(progressListener) : new OutputTail(),
+                                 "ffmpeg stdout pump");
         int ffmpegResult;
-        // ffmpeg hangs if you don't read its stdout
-        while(!ffmpegProc.waitFor(1000, TimeUnit.MILLISECONDS))
+        try
+        {
+            ffmpegResult = ffmpegProc.waitFor();
+            // the pipes close when ffmpeg exits, so these finish straight after it
+            stderrPump.join();
+            stdoutPump.join();
+        }
+        catch(InterruptedException e)
         {
-            if(stdout.available() > 0)
+            // whoever interrupted us doesn't want the output anymore, so don't leave ffmpeg running to make it
+            ffmpegProc.destroyForcibly();
+            throw e;
+        }
+        if(ffmpegResult != 0)
+        {
+            throw new IOException(stderr.toString());
+        }
+    }
+    
+    // for probes whose output can be too big to leave in the pipe, like packet lists; reads it as ffprobe writes it
+    public JsonNode runFfprobe(List<String> ffprobeArgs) throws IOException, InterruptedException
+    {
+        ffprobeArgs.addAll(0, Arrays.asList("-print_format", "json"));
+        JsonNode[] json = new JsonNode[1];
+        runFfprobe(ffprobeArgs, stdout -> json[0] = objectMapper.readTree(stdout));
+        if(json[0] == null)
+        {
+            throw new IOException("no output from ffprobe");
+        }
+        return json[0];
+    }
+    
+    // the same, one line at a time, for output that's too big to want in memory all at once
+    public void runFfprobeLines(List<String> ffprobeArgs, Consumer<String> lineConsumer) throws IOException,
+                                                                                               InterruptedException
+    {
+        runFfprobe(ffprobeArgs, stdout -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stdout, StandardCharsets.UTF_8));
+            String line;
+            while((line = reader.readLine()) != null)
             {
-                ffmpegOutput += IOUtils.toString(stdout, Charset.defaultCharset());
+                lineConsumer.accept(line);
             }
-            if(stderr.available() > 0)
+        });
+    }
+    
+    private void runFfprobe(List<String> ffprobeArgs, OutputReader outputReader) throws IOException,
+                                                                                       InterruptedException
+    {
+        ffprobeArgs.addAll(0, Arrays.asList(settings.getFfprobePath(), "-v", "error"));
+        // errors go to a file so a corrupt video's stream of them can't fill the pipe and stall ffprobe
+        File errors = File.createTempFile("ffprobe", ".log");
+        Process ffprobeProc = new ProcessBuilder(ffprobeArgs).directory(
+                new File(Paths.get(settings.getFfmpegPath()).getParent().toString())).redirectError(errors).start();
+        try
+        {
+            outputReader.read(ffprobeProc.getInputStream());
+            if(ffprobeProc.waitFor() != 0)
             {
-                ffmpegError += IOUtils.toString(stderr, Charset.defaultCharset());
+                throw new IOException(Files.readString(errors.toPath(), Charset.defaultCharset()));
             }
         }
-        ffmpegResult = ffmpegProc.waitFor();
-        if(stdout.available() > 0)
+        catch(InterruptedException e)
         {
-            ffmpegOutput += IOUtils.toString(stdout, Charset.defaultCharset());
+            ffprobeProc.destroyForcibly();
+            throw e;
         }
-        if(stderr.available() > 0)
+        finally
         {
-            ffmpegError += IOUtils.toString(stderr, Charset.defaultCharset());
+            errors.delete();
         }
-        if(ffmpegResult != 0)
+    }
+    
+    private static Thread pump(InputStream stream, Consumer<String> lineConsumer, String name)
+    {
+        Thread pump = new Thread(() -> {
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset())))
+            {
+                String line;
+                while((line = reader.readLine()) != null)
+                {
+                    try
+                    {
+                        lineConsumer.accept(line);
+                    }
+                    catch(RuntimeException e)
+                    {
+                        // a broken listener mustn't stop the pipe being drained, or ffmpeg stalls
+                    }
+                }
+            }
+            catch(IOException e)
+            {
+                // the process went away, which waitFor reports
+            }
+        }, name);
+        pump.setDaemon(true);
+        pump.start();
+        return pump;
+    }
+    
+    private interface OutputReader
+    {
+        void read(InputStream stdout) throws IOException;
+    }
+    
+    // the last lines of some output
+    private static class OutputTail implements Consumer<String>
+    {
+        private static final int MAX_LINES = 64;
+        
+        private final String[] lines = new String[MAX_LINES];
+        private int count;
+        
+        @Override
+        public synchronized void accept(String line)
         {
-            throw new IOException(ffmpegError);
+            lines[count % MAX_LINES] = line;
+            count++;
+        }
+        
+        @Override
+        public synchronized String toString()
+        {
+            StringBuilder tail = new StringBuilder();
+            for(int i = Math.max(0, count - MAX_LINES); i < count; i++)
+            {
+                tail.append(lines[i % MAX_LINES]).append('\n');
+            }
+            return tail.toString();
+        }
+    }
+    
+    // -progress output is blocks of key=value lines, each ended by a progress=continue or progress=end line
+    private static class ProgressParser implements Consumer<String>
+    {
+        private final Consumer<FfmpegProgress> listener;
+        private long outTimeMillis;
+        private double speed = Double.NaN;
+        
+        ProgressParser(Consumer<FfmpegProgress> listener)
+        {
+            this.listener = listener;
+        }
+        
+        @Override
+        public void accept(String line)
+        {
+            int equals = line.indexOf('=');
+            if(equals < 0)
+            {
+                return;
+            }
+            String value = line.substring(equals + 1).trim();
+            try
+            {
+                switch(line.substring(0, equals))
+                {
+                    // despite the name, out_time_ms is in microseconds
+                    case "out_time_us":
+                    case "out_time_ms":
+                        outTimeMillis = Math.max(0, Long.parseLong(value) / 1000);
+                        break;
+                    case "speed":
+                        speed = value.endsWith("x") ? Double.parseDouble(value.substring(0, value.length() - 1))
+                                                    : Double.NaN;
+                        break;
+                    case "progress":
+                        listener.accept(new FfmpegProgress(outTimeMillis, speed, value.equals("end")));
+                        break;
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                // N/A before the first frame is written
+            }
         }
     }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.clip;
+
+// one block of ffmpeg's -progress output, for the run that produced it
+public class FfmpegProgress
+{
+    private final long outTimeMillis;
+    private final double speed;
+    private final boolean finished;
+    
+    FfmpegProgress(long outTimeMillis, double speed, boolean finished)
+    {
+        this.outTimeMillis = outTimeMillis;
+        this.speed = speed;
+        this.finished = finished;
+    }
+    
+    // how much of the output has been written so far
+    public long getOutTimeMillis()
+    {
+        return outTimeMillis;
+    }
+    
+    // output time per wall clock time, or NaN before ffmpeg knows
+    public double getSpeed()
+    {
+        return speed;
+    }
+    
+    public boolean isFinished()
+    {
+        return finished;
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.clip;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.inject.Inject;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+import io.github.trdesilva.autorecorder.video.KeyframeIndex;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// cuts a clip by copying the part of the range that starts and ends on keyframes, and only re-encoding the partial
+// GOPs on either side of it. the pieces are written as MPEG-TS, which carries the codec parameters in-band, so they
+// can be joined without re-encoding even though the edges came from a different encoder than the middle
+public class SmartCutter
+{
+    // with less than this to copy, the extra ffmpeg runs cost more than re-encoding the whole clip would
+    private static final double MIN_COPIED_SECONDS = 2;
+    // seeks land on the keyframe at or before the requested time, so aim just past the one we want
+    private static final double SEEK_EPSILON_SECONDS = 0.001;
+    // a segment starting within about a frame of a keyframe is taken to have been meant to start on it
+    private static final long ALIGNED_TOLERANCE_MICROS = 20000;
+    private static final Set<String> X264_PROFILES = Set.of("baseline", "main", "high");
+    private static final List<String> PIECE_NAMES = List.of("head", "copy", "tail");
+    // how long a stopped chunked encode waits for its ffmpeg runs to go away before cleaning up after them
+    private static final long CHUNK_STOP_WAIT_SECONDS = 5;
+    
+    private final FfmpegHelper ffmpegHelper;
+    private final VideoMetadataHandler metadataHandler;
+    private final EventQueue events;
+    
+    @Inject
+    public SmartCutter(FfmpegHelper ffmpegHelper, VideoMetadataHandler metadataHandler, EventQueue events)
+    {
+        this.ffmpegHelper = ffmpegHelper;
+        this.metadataHandler = metadataHandler;
+        this.events = events;
+    }
+    
+    public boolean cut(File source, File dest, long startMillis, long endMillis) throws IOException,
+                                                                                        InterruptedException
+    {
+        return cut(source, dest, startMillis, endMillis, 0, null);
+    }
+    
+    // returns false without writing anything if the source can't be smart cut, e.g. it isn't H.264 or there's no
+    // keyframe-aligned stretch in the range worth copying. threads limits the encoder; 0 leaves it to ffmpeg.
+    // progressListener may be null
+    public boolean cut(File source, File dest, long startMillis, long endMillis, int threads,
+                       Consumer<ClipProgress> progressListener) throws IOException, InterruptedException
+    {
+        double start = startMillis / 1000.;
+        double end = endMillis / 1000.;
+        
+        // the stored index saves scanning packets, but until there is one, only the range itself gets scanned
+        KeyframeIndex index = metadataHandler.getKeyframeIndexIfReady(source);
+        List<String> probeArgs = new LinkedList<>(Arrays.asList("-select_streams", "v:0", "-show_entries",
+                                                                "stream=codec_name,profile,pix_fmt"));
+        if(index == null)
+        {
+            metadataHandler.getKeyframeIndexAsync(source);
+            probeArgs.set(3, probeArgs.get(3) + ":packet=pts_time,flags");
+            probeArgs.addAll(Arrays.asList("-read_intervals", String.format(Locale.ROOT, "%.3f%%%.3f", start, end)));
+        }
+        probeArgs.add(source.getAbsolutePath());
+        JsonNode probe = ffmpegHelper.runFfprobe(probeArgs);
+        JsonNode stream = probe.path("streams").path(0);
+        if(!stream.path("codec_name").asText().equals("h264"))
+        {
+            return false;
+        }
+        
+        double firstKeyframe = Double.NaN;
+        double lastKeyframe = Double.NaN;
+        if(index != null)
+        {
+            int first = index.ceiling(startMillis * 1000);
+            int last = index.floor(endMillis * 1000);
+            if(first >= 0 && last >= first)
+            {
+                firstKeyframe = index.getTimeMicros(first) / 1e6;
+                lastKeyframe = index.getTimeMicros(last) / 1e6;
+            }
+        }
+        for(JsonNode packet: probe.path("packets"))
+        {
+            if(!packet.path("flags").asText().startsWith("K") || !packet.path("pts_time").isTextual())
+            {
+                continue;
+            }
+            double time;
+            try
+            {
+                time = Double.parseDouble(packet.get("pts_time").asText());
+            }
+            catch(NumberFormatException e)
+            {
+                // N/A
+                continue;
+            }
+            if(time >= start && time <= end)
+            {
+                firstKeyframe = Double.isNaN(firstKeyframe) ? time : Math.min(firstKeyframe, time);
+                lastKeyframe = Double.isNaN(lastKeyframe) ? time : Math.max(lastKeyframe, time);
+            }
+        }
+        if(Double.isNaN(firstKeyframe) || lastKeyframe - firstKeyframe < MIN_COPIED_SECONDS)
+        {
+            return false;
+        }
+        
+        List<String> encoderArgs = new ArrayList<>(Arrays.asList("-c:v", "libx264", "-crf", "18"));
+        // matched to the source where we can, so players don't have to switch decoder setup at the seams
+        String profile = stream.path("profile").asText().toLowerCase(Locale.ROOT).replace("constrained ", "");
+        if(X264_PROFILES.contains(profile))
+        {
+            encoderArgs.addAll(Arrays.asList("-profile:v", profile));
+        }
+        if(stream.path("pix_fmt").isTextual())
+        {
+            encoderArgs.addAll(Arrays.asList("-pix_fmt", stream.get("pix_fmt").asText()));
+        }
+        if(threads > 0)
+        {
+            encoderArgs.addAll(Arrays.asList("-threads", Integer.toString(threads)));
+        }
+        
+        double copyStart = firstKeyframe;
+        double copyEnd = lastKeyframe;
+        events.postEvent(EventType.DEBUG, () -> String.format(
+                "Smart cutting %s: re-encoding %.2fs, copying %.2fs", dest.getName(),
+                (copyStart - start) + (end - copyEnd), copyEnd - copyStart));
+        
+        ClipProgress.Tracker tracker = new ClipProgress.Tracker(endMillis - startMillis, progressListener);
+        List<Path> pieces = new ArrayList<>();
+        try
+        {
+            if(copyStart > start)
+            {
+                pieces.add(writePiece(source, getTempPath(dest, "head", "ts"), start, copyStart, encoderArgs,
+                                      tracker));
+            }
+            pieces.add(writePiece(source, getTempPath(dest, "copy", "ts"), copyStart + SEEK_EPSILON_SECONDS, copyEnd,
+                                  Arrays.asList("-c:v", "copy"), tracker));
+            if(end > copyEnd)
+            {
+                pieces.add(writePiece(source, getTempPath(dest, "tail", "ts"), copyEnd, end, encoderArgs, tracker));
+            }
+            join(pieces, dest);
+        }
+        finally
+        {
+            // including any a failed ffmpeg run left half written
+            for(String name: PIECE_NAMES)
+            {
+                Files.deleteIfExists(getTempPath(dest, name, "ts"));
+            }
+        }
+        return true;
+    }
+    
+    // joins the segments without re-encoding any of them, which needs every segment to start on a keyframe. returns
+    // false without writing anything if one doesn't, or if the source's keyframes aren't known yet
+    public boolean copySegments(File source, File dest, List<Long> startMillis, List<Long> endMillis,
+                                Consumer<ClipProgress> progressListener) throws IOException, InterruptedException
+    {
+        KeyframeIndex index = metadataHandler.getKeyframeIndexIfReady(source);
+        if(index == null)
+        {
+            metadataHandler.getKeyframeIndexAsync(source);
+            return false;
+        }
+        
+        double[] starts = new double[startMillis.size()];
+        for(int i = 0; i < starts.length; i++)
+        {
+            long startMicros = startMillis.get(i) * 1000;
+            int keyframe = index.nearest(startMicros);
+            if(keyframe < 0 || Math.abs(index.getTimeMicros(keyframe) - startMicros) > ALIGNED_TOLERANCE_MICROS)
+            {
+                return false;
+            }
+            starts[i] = index.getTimeMicros(keyframe) / 1e6;
+        }
+        
+        events.postEvent(EventType.DEBUG, () -> String.format("Copying %d keyframe-aligned segments into %s",
+                                                              starts.length, dest.getName()));
+        long totalMillis = 0;
+        for(int i = 0; i < starts.length; i++)
+        {
+            totalMillis += endMillis.get(i) - Math.round(starts[i] * 1000);
+        }
+        ClipProgress.Tracker tracker = new ClipProgress.Tracker(totalMillis, progressListener);
+        List<Path> pieces = new ArrayList<>();
+        try
+        {
+            for(int i = 0; i < starts.length; i++)
+            {
+                pieces.add(getTempPath(dest, "segment" + i, "ts"));
+                writePiece(source, pieces.get(i), starts[i] + SEEK_EPSILON_SECONDS, endMillis.get(i) / 1000.,
+                           Arrays.asList("-c:v", "copy"), tracker);
+            }
+            join(pieces, dest);
+        }
+        finally
+        {
+            for(Path piece: pieces)
+            {
+                Files.deleteIfExists(piece);
+            }
+        }
+        return true;
+    }
+    
+    // re-encodes the range as chunks that each start on a keyframe, in separate ffmpeg runs at the same time with an
+    // even share of the threads each, then joins them without re-encoding again. x264 stops getting faster with more
+    // threads well before a big machine runs out of them, so this finishes long clips sooner than one encode would.
+    // threads is the total to share out; 0 uses every core. returns false without writing anything if the source's
+    // keyframes aren't known yet
+    public boolean encodeChunked(File source, File dest, long startMillis, long endMillis, int chunkCount, int threads,
+                                 Consumer<ClipProgress> progressListener) throws IOException, InterruptedException
+    {
+        KeyframeIndex index = metadataHandler.getKeyframeIndexIfReady(source);
+        if(index == null)
+        {
+            metadataHandler.getKeyframeIndexAsync(source);
+            return false;
+        }
+        
+        // chunks split at the keyframe nearest an even share of the range, so no frame is decoded twice; any that
+        // land on the same keyframe or outside the range are merged into their neighbours
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(startMillis * 1000);
+        for(int i = 1; i < chunkCount; i++)
+        {
+            int keyframe = index.nearest((startMillis + (endMillis - startMillis) * i / chunkCount) * 1000);
+            long keyframeMicros = keyframe >= 0 ? index.getTimeMicros(keyframe) : -1;
+            if(keyframeMicros > boundaries.get(boundaries.size() - 1) && keyframeMicros < endMillis * 1000)
+            {
+                boundaries.add(keyframeMicros);
+            }
+        }
+        boundaries.add(endMillis * 1000);
+        int chunks = boundaries.size() - 1;
+        
+        int totalThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        List<String> encoderArgs = Arrays.asList("-c:v", "libx264", "-threads",
+                                                 Integer.toString(Math.max(1, totalThreads / chunks)));
+        events.postEvent(EventType.DEBUG, () -> String.format("Encoding %s in %d chunks of %s threads",
+                                                              dest.getName(), chunks, encoderArgs.get(3)));
+        
+        ClipProgress.Tracker tracker = new ClipProgress.Tracker(endMillis - startMillis, progressListener);
+        List<Path> pieces = new ArrayList<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(chunks, runnable -> {
+            Thread thread = new Thread(runnable, "Chunk encoding thread " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Path> encodes = new ExecutorCompletionService<>(executor);
+        try
+        {
+            for(int i = 0; i < chunks; i++)
+            {
+                Path piece = getTempPath(dest, "chunk" + i, "ts");
+                // an exact seek rather than one just past the keyframe, since these are decoded rather than copied
+                double from = boundaries.get(i) / 1e6;
+                double to = boundaries.get(i + 1) / 1e6;
+                pieces.add(piece);
+                encodes.submit(() -> writePiece(source, piece, from, to, encoderArgs, tracker));
+            }
+            // in the order they finish, so the first failure stops the rest straight away
+            for(int i = 0; i < chunks; i++)
+            {
+                try
+                {
+                    encodes.take().get();
+                }
+                catch(ExecutionException e)
+                {
+                    if(e.getCause() instanceof IOException)
+                    {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+            joinWithAudio(pieces, dest, source, startMillis, endMillis);
+        }
+        finally
+        {
+            // interrupts any chunks still going, which kills their ffmpeg runs
+            executor.shutdownNow();
+            try
+            {
+                executor.awaitTermination(CHUNK_STOP_WAIT_SECONDS, TimeUnit.SECONDS);
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            // ffmpeg may not have let go of a piece yet, and failing here shouldn't hide why the encode stopped
+            for(Path piece: pieces)
+            {
+                try
+                {
+                    Files.deleteIfExists(piece);
+                }
+                catch(IOException e)
+                {
+                    events.postEvent(EventType.DEBUG, () -> String.format("Couldn't delete %s: %s",
+                                                                          piece.getFileName(), e.getMessage()));
+                }
+            }
+        }
+        return true;
+    }
+    
+    private void join(List<Path> pieces, File dest) throws IOException, InterruptedException
+    {
+        Path listFile = getTempPath(dest, "list", "txt");
+        try
+        {
+            Files.writeString(listFile, getConcatList(pieces), StandardCharsets.UTF_8);
+            ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList("-f", "concat", "-safe", "0", "-i",
+                                                                  listFile.toString(), "-map", "0", "-c", "copy",
+                                                                  dest.getAbsolutePath())));
+        }
+        finally
+        {
+            Files.deleteIfExists(listFile);
+        }
+    }
+    
+    // joins the pieces' video, with the range's audio encoded to AAC in one go from the source, the same as a clip
+    // made in a single encode. the pieces' own audio is only copied, and isn't used
+    private void joinWithAudio(List<Path> pieces, File dest, File source, long startMillis, long endMillis)
+            throws IOException, InterruptedException
+    {
+        Path listFile = getTempPath(dest, "list", "txt");
+        try
+        {
+            Files.writeString(listFile, getConcatList(pieces), StandardCharsets.UTF_8);
+            ffmpegHelper.runFfmpeg(new LinkedList<>(Arrays.asList(
+                    "-f", "concat", "-safe", "0", "-i", listFile.toString(),
+                    "-ss", String.format(Locale.ROOT, "%.3f", startMillis / 1000.),
+                    "-t", String.format(Locale.ROOT, "%.3f", (endMillis - startMillis) / 1000.),
+                    "-i", source.getAbsolutePath(), "-map", "0:v", "-map", "1:a?", "-c:v", "copy", "-c:a", "aac",
+                    dest.getAbsolutePath())));
+        }
+        finally
+        {
+            Files.deleteIfExists(listFile);
+        }
+    }
+    
+    private static String getConcatList(List<Path> pieces)
+    {
+        StringBuilder list = new StringBuilder();
+        for(Path piece: pieces)
+        {
+            list.append("file '").append(piece.toAbsolutePath().toString().replace("'", "'\\''")).append("'\n");
+        }
+        return list.toString();
+    }
+    
+    private Path writePiece(File source, Path piece, double from, double to, List<String> videoArgs,
+                            ClipProgress.Tracker tracker) throws IOException, InterruptedException
+    {
+        List<String> ffmpegArgs = new LinkedList<>(Arrays.asList(
+                "-ss", String.format(Locale.ROOT, "%.6f", from), "-i", source.getAbsolutePath(),
+                "-t", String.format(Locale.ROOT, "%.6f", to - from), "-map", "0:v:0", "-map", "0:a?"));
+        ffmpegArgs.addAll(videoArgs);
+        // audio is copied throughout; its frames are short enough that the cut lands within a few ms either way
+        ffmpegArgs.addAll(Arrays.asList("-c:a", "copy", "-f", "mpegts", piece.toString()));
+        ffmpegHelper.runFfmpeg(ffmpegArgs, tracker.forRun(Math.round((to - from) * 1000)));
+        return piece;
+    }
+    
+    // whatever a cut into dest left behind, e.g. when the app closed partway through it
+    void deleteTempFiles(File dest) throws IOException
+    {
+        String suffix = "_" + dest.getName() + ".";
+        try(DirectoryStream<Path> temps = Files.newDirectoryStream(dest.toPath().getParent(), path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith("temp") && name.contains(suffix)
+                    && (name.endsWith(".ts") || name.endsWith(".txt"));
+        }))
+        {
+            for(Path temp: temps)
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+    
+    // not a video name, so the clip list ignores these while they exist
+    private Path getTempPath(File dest, String name, String extension)
+    {
+        return dest.toPath().resolveSibling(String.format("temp%s_%s.%s", name, dest.getName(), extension));
+    }
+}
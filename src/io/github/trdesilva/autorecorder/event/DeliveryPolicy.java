@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.event;
+
+// what EventQueue does with a new event when its buffer is full
+public enum DeliveryPolicy
+{
+    // discard the new event
+    DROP,
+    // replace the newest queued event of the same type, or discard the new event if there isn't one
+    COALESCE,
+    // make the poster wait for space
+    BLOCK
+}
@@ -12,19 +12,22 @@ import java.util.Map;
 
 public class Event
 {
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    // off unless --debug is set; debug events always record where they came from
+    private static volatile boolean captureAllSources = false;
+    
     private EventType type;
     private String message;
     private Map<EventProperty, Object> properties;
     
     private DateTime timestamp;
+    private StackWalker.StackFrame sourceFrame;
     private StackTraceElement source;
     private String sourceThread;
     
     public Event(EventType type, String message)
     {
         this(type, message, Collections.emptyMap());
-        // 0 is getStackTrace(), 1 is this constructor, 2 is the caller
-        source = Thread.currentThread().getStackTrace()[2];
     }
     
     public Event(EventType type, String message, Map<EventProperty, Object> properties)
@@ -34,11 +37,27 @@ public class Event
         this.properties = properties;
         
         timestamp = DateTime.now();
-        // 0 is getStackTrace(), 1 is this constructor, 2 is the caller
-        source = Thread.currentThread().getStackTrace()[2];
+        if(type == EventType.DEBUG || captureAllSources)
+        {
+            // the stream is lazy, so this only walks as far as the first frame outside the event classes
+            sourceFrame = STACK_WALKER.walk(frames -> frames.filter(frame -> !isEventFrame(frame))
+                                                            .findFirst()
+                                                            .orElse(null));
+        }
         sourceThread = Thread.currentThread().getName();
     }
     
+    public static void setCaptureAllSources(boolean captureAllSources)
+    {
+        Event.captureAllSources = captureAllSources;
+    }
+    
+    private static boolean isEventFrame(StackWalker.StackFrame frame)
+    {
+        String className = frame.getClassName();
+        return className.equals(Event.class.getName()) || className.equals(EventQueue.class.getName());
+    }
+    
     public EventType getType()
     {
         return type;
@@ -59,15 +78,37 @@ public class Event
         return timestamp;
     }
     
+    // null if the source wasn't captured
     public StackTraceElement getSource()
     {
+        // resolving file and line numbers is the expensive part of a frame, so only do it if someone asks
+        if(source == null && sourceFrame != null)
+        {
+            source = sourceFrame.toStackTraceElement();
+        }
         return source;
     }
     
+    // class and method of the source without resolving the rest of the frame, or null if it wasn't captured
+    public String getSourceName()
+    {
+        return sourceFrame == null ? null : sourceFrame.getClassName() + "." + sourceFrame.getMethodName();
+    }
+    
+    public String getSourceThread()
+    {
+        return sourceThread;
+    }
+    
     @Override
     public String toString()
     {
+        if(sourceFrame == null)
+        {
+            return String.format("%s %s [%s] %s %s", timestamp.toString(), type.name(), sourceThread, message,
+                                 properties.toString());
+        }
         return String.format("%s %s [%s:%s.%s] %s %s", timestamp.toString(), type.name(), sourceThread,
-                             source.getClassName(), source.getMethodName(), message, properties.toString());
+                             sourceFrame.getClassName(), sourceFrame.getMethodName(), message, properties.toString());
     }
 }
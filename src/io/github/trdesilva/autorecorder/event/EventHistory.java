@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.event;
+
+import com.google.inject.Singleton;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// the most recent events of the session, recorded by EventQueue's dispatch thread as it routes them
+@Singleton
+public class EventHistory
+{
+    public static final int CAPACITY = 2048;
+    private static final int MASK = CAPACITY - 1;
+    
+    private final AtomicReferenceArray<Event> slots;
+    // total events ever recorded; the dispatch thread is the only writer, so readers never need to lock
+    private final AtomicLong recorded;
+    
+    public EventHistory()
+    {
+        slots = new AtomicReferenceArray<>(CAPACITY);
+        recorded = new AtomicLong();
+    }
+    
+    void record(Event event)
+    {
+        long sequence = recorded.get();
+        slots.set((int) (sequence & MASK), event);
+        // publishing the count after the slot means a reader that sees the count also sees the event
+        recorded.set(sequence + 1);
+    }
+    
+    public List<Event> getRecent(int limit)
+    {
+        return query(null, null, null, null, limit);
+    }
+    
+    // null filters match anything; returns at most limit of the newest matching events, oldest first
+    public List<Event> query(Set<EventType> types, DateTime from, DateTime to, String sourceThread, int limit)
+    {
+        List<Event> matches = new ArrayList<>();
+        long end = recorded.get();
+        long start = Math.max(0, end - CAPACITY);
+        for(long sequence = end - 1; sequence >= start && matches.size() < limit; sequence--)
+        {
+            Event event = slots.get((int) (sequence & MASK));
+            // the writer may have lapped this slot while we were reading back to it, or be about to
+            if(recorded.get() - CAPACITY >= sequence)
+            {
+                break;
+            }
+            
+            if((types == null || types.contains(event.getType()))
+                    && (from == null || !event.getTimestamp().isBefore(from))
+                    && (to == null || !event.getTimestamp().isAfter(to))
+                    && (sourceThread == null || sourceThread.equals(event.getSourceThread())))
+            {
+                matches.add(event);
+            }
+        }
+        
+        Collections.reverse(matches);
+        return matches;
+    }
+}
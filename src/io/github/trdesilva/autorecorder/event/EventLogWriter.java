@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.event;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import io.github.trdesilva.autorecorder.Settings;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// writes every event as a line of JSON to a rotating log under the settings dir, on its own thread so nothing that
+// posts events ever waits on the disk or the console
+@Singleton
+public class EventLogWriter implements EventConsumer
+{
+    private static final Path LOG_DIR = Settings.SETTINGS_DIR.resolve("logs");
+    private static final String LOG_NAME = "events";
+    private static final long MAX_FILE_BYTES = 5 * 1024 * 1024;
+    private static final int MAX_ROTATED_FILES = 4;
+    
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    
+    private final boolean isDebugMode;
+    private final BlockingQueue<Event> pending;
+    private final AtomicInteger dropped;
+    private final JsonFactory jsonFactory;
+    private final Thread writerThread;
+    
+    // only touched by the writer thread
+    private final List<Event> batch;
+    private CountingOutputStream fileStream;
+    private JsonGenerator generator;
+    private long fileBytes;
+    private boolean unflushed;
+    private long lastFlushed;
+    
+    @Inject
+    public EventLogWriter(EventQueue events, @Named("isDebugMode") boolean isDebugMode)
+    {
+        this.isDebugMode = isDebugMode;
+        pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        dropped = new AtomicInteger();
+        // records are separated by the newline written after each one rather than Jackson's default space
+        jsonFactory = new JsonFactory().setRootValueSeparator(null);
+        batch = new ArrayList<>(QUEUE_CAPACITY);
+        
+        writerThread = new Thread(this::run, "Event log writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        // the writer is a daemon so it can't hold up exit, which means the last batch has to be flushed on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "Event log shutdown"));
+        
+        events.addConsumer(this);
+    }
+    
+    @Override
+    public void post(Event event)
+    {
+        if(!pending.offer(event))
+        {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    @Override
+    public Set<EventType> getSubscriptions()
+    {
+        return EnumSet.allOf(EventType.class);
+    }
+    
+    public void close()
+    {
+        writerThread.interrupt();
+        try
+        {
+            writerThread.join(FLUSH_INTERVAL_MILLIS);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void run()
+    {
+        boolean running = true;
+        while(running)
+        {
+            Event first = null;
+            try
+            {
+                first = pending.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            catch(InterruptedException e)
+            {
+                running = false;
+            }
+            
+            if(first != null)
+            {
+                batch.add(first);
+            }
+            pending.drainTo(batch);
+            writeBatch();
+            
+            // batches are flushed once things go quiet, or at least once per interval while they aren't
+            long now = System.currentTimeMillis();
+            if(unflushed && (first == null || !running || now - lastFlushed >= FLUSH_INTERVAL_MILLIS))
+            {
+                flush();
+                lastFlushed = now;
+            }
+        }
+        
+        closeFile();
+    }
+    
+    private void writeBatch()
+    {
+        int droppedCount = dropped.getAndSet(0);
+        if(batch.isEmpty() && droppedCount == 0)
+        {
+            return;
+        }
+        
+        // everything but debug output goes to the console too, since that's all --cli has to show what's happening.
+        // it's echoed first so a log file that can't be written doesn't silence it
+        for(Event event: batch)
+        {
+            if(event.getType() != EventType.DEBUG || isDebugMode)
+            {
+                System.out.println(event);
+            }
+        }
+        
+        try
+        {
+            if(generator == null)
+            {
+                openFile();
+            }
+            
+            if(droppedCount > 0)
+            {
+                generator.writeStartObject();
+                generator.writeNumberField("timestamp", System.currentTimeMillis());
+                generator.writeNumberField("dropped", droppedCount);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            for(Event event: batch)
+            {
+                writeEvent(event);
+            }
+            unflushed = true;
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to write event log: " + e.getMessage());
+            closeFile();
+        }
+        finally
+        {
+            batch.clear();
+        }
+    }
+    
+    private void writeEvent(Event event) throws IOException
+    {
+        generator.writeStartObject();
+        generator.writeNumberField("timestamp", event.getTimestamp().getMillis());
+        generator.writeStringField("type", event.getType().name());
+        generator.writeStringField("thread", event.getSourceThread());
+        String sourceName = event.getSourceName();
+        if(sourceName != null)
+        {
+            generator.writeStringField("source", sourceName);
+        }
+        generator.writeStringField("message", event.getMessage());
+        if(!event.getProperties().isEmpty())
+        {
+            generator.writeObjectFieldStart("properties");
+            for(Map.Entry<EventProperty, Object> property: event.getProperties().entrySet())
+            {
+                generator.writeStringField(property.getKey().name(), String.valueOf(property.getValue()));
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+    
+    private void flush()
+    {
+        try
+        {
+            if(generator != null)
+            {
+                generator.flush();
+                if(fileBytes + fileStream.getByteCount() > MAX_FILE_BYTES)
+                {
+                    closeFile();
+                    rotate();
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to flush event log: " + e.getMessage());
+            closeFile();
+        }
+        unflushed = false;
+    }
+    
+    private void openFile() throws IOException
+    {
+        Files.createDirectories(LOG_DIR);
+        File logFile = logFile(0);
+        fileBytes = logFile.length();
+        fileStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true),
+                                                                       WRITE_BUFFER_SIZE));
+        generator = jsonFactory.createGenerator(fileStream);
+    }
+    
+    private void closeFile()
+    {
+        if(generator != null)
+        {
+            try
+            {
+                generator.close();
+            }
+            catch(IOException e)
+            {
+                System.err.println("Failed to close event log: " + e.getMessage());
+            }
+            generator = null;
+            fileStream = null;
+        }
+    }
+    
+    // events.log becomes events.1.log and so on, dropping the oldest
+    private void rotate() throws IOException
+    {
+        Files.deleteIfExists(logFile(MAX_ROTATED_FILES).toPath());
+        for(int i = MAX_ROTATED_FILES - 1; i >= 0; i--)
+        {
+            File logFile = logFile(i);
+            if(logFile.exists())
+            {
+                Files.move(logFile.toPath(), logFile(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+    
+    private static File logFile(int generation)
+    {
+        String name = generation == 0 ? LOG_NAME + ".log" : String.format("%s.%d.log", LOG_NAME, generation);
+        return LOG_DIR.resolve(name).toFile();
+    }
+}
@@ -9,8 +9,12 @@ public enum EventProperty
 {
     LINK,
     CLIP_JOB,
+    CLIP_PROGRESS,
     UPLOAD_JOB,
     BOOKMARK_TIME,
     GAME_NAME,
-    THUMBNAIL_SOURCE
+    THUMBNAIL_SOURCE,
+    CACHE_STATS,
+    VIDEO_FILE,
+    VIDEO_TYPE
 }
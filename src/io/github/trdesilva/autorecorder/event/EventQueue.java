@@ -7,75 +7,397 @@ package io.github.trdesilva.autorecorder.event;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Singleton
 public class EventQueue
 {
-    private final ConcurrentLinkedQueue<Event> postQueue;
-    private final Semaphore semaphore;
-    private final List<EventConsumer> consumers;
-    private final ExecutorService threadPoolExecutor;
-    private final Thread consumerThread;
+    private static final int BUFFER_CAPACITY = 1024;
+    // how many events a consumer gets before its delivery thread is handed to another consumer
+    private static final int DELIVERY_BATCH_SIZE = 64;
+    // events waiting for each consumer; past this, delivery policies apply per consumer, the same as for the buffer
+    private static final int MAILBOX_CAPACITY = 256;
+    // how long the dispatch thread waits on a full mailbox before delivering anyway, so a consumer that's stuck posting
+    // into the full buffer can't hold up everyone else for good
+    private static final long MAILBOX_BLOCK_MILLIS = 1000;
+    
+    // ring buffer of posted events waiting to be routed to consumers
+    private final Event[] buffer;
+    private int head;
+    private int count;
+    private final ReentrantLock bufferLock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+    
+    // consumers subscribed to each type, replaced wholesale when a consumer is added so dispatch never locks
+    private volatile EnumMap<EventType, Mailbox[]> routes;
+    private final ExecutorService deliveryExecutor;
+    private final Thread dispatchThread;
+    
+    private final EventHistory history;
+    private final boolean isDebugMode;
     
     @Inject
-    public EventQueue()
+    public EventQueue(EventHistory history, @Named("isDebugMode") boolean isDebugMode)
     {
-        postQueue = new ConcurrentLinkedQueue<>();
-        postQueue.offer(new Event(EventType.SUCCESS, "Welcome to Autorecorder"));
-        semaphore = new Semaphore(1);
-        consumers = new LinkedList<>();
-    
-        threadPoolExecutor = Executors.newFixedThreadPool(2);
+        this.history = history;
+        this.isDebugMode = isDebugMode;
+        
+        buffer = new Event[BUFFER_CAPACITY];
+        bufferLock = new ReentrantLock();
+        notEmpty = bufferLock.newCondition();
+        notFull = bufferLock.newCondition();
         
-        consumerThread = new Thread(() -> {
+        routes = new EnumMap<>(EventType.class);
+        
+        AtomicInteger deliveryThreadCount = new AtomicInteger();
+        // each consumer is drained by at most one thread at a time, so this only grows to the number of busy consumers
+        deliveryExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Event delivery thread " + deliveryThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        dispatchThread = new Thread(() -> {
             while(true)
             {
+                Event event;
                 try
                 {
-                    semaphore.acquire();
+                    event = take();
                 }
                 catch(InterruptedException e)
                 {
                     return;
                 }
                 
-                Event event = postQueue.poll();
-                
-                for(EventConsumer consumer: consumers)
+                history.record(event);
+                Mailbox[] subscribers = routes.get(event.getType());
+                if(subscribers != null)
                 {
-                    if(consumer.getSubscriptions().contains(event.getType()))
+                    for(Mailbox mailbox: subscribers)
                     {
-                        threadPoolExecutor.submit(() -> consumer.post(event));
+                        mailbox.deliver(event);
                     }
                 }
             }
         });
-        consumerThread.setName("Status thread");
+        dispatchThread.setName("Status thread");
+        dispatchThread.setDaemon(true);
+        
+        postEvent(new Event(EventType.SUCCESS, "Welcome to Autorecorder"));
     }
     
     public void addConsumer(EventConsumer consumer)
     {
         if(consumer != null)
         {
-            consumers.add(consumer);
-            if(!consumerThread.isAlive())
+            // subscriptions are read once here, so consumers need to know what they want up front
+            Mailbox mailbox = new Mailbox(consumer);
+            synchronized(dispatchThread)
             {
-                consumerThread.start();
+                EnumMap<EventType, Mailbox[]> newRoutes = new EnumMap<>(routes);
+                for(EventType type: consumer.getSubscriptions())
+                {
+                    Mailbox[] subscribers = newRoutes.getOrDefault(type, new Mailbox[0]);
+                    Mailbox[] newSubscribers = Arrays.copyOf(subscribers, subscribers.length + 1);
+                    newSubscribers[subscribers.length] = mailbox;
+                    newRoutes.put(type, newSubscribers);
+                }
+                routes = newRoutes;
+                
+                if(!dispatchThread.isAlive())
+                {
+                    dispatchThread.start();
+                }
             }
         }
     }
     
+    // debug events are only worth building when --debug is set
+    public boolean isEnabled(EventType type)
+    {
+        return type != EventType.DEBUG || isDebugMode;
+    }
+    
+    public void postEvent(EventType type, String message)
+    {
+        if(isEnabled(type))
+        {
+            postEvent(new Event(type, message));
+        }
+    }
+    
+    // the message is only formatted if the event will actually be posted
+    public void postEvent(EventType type, Supplier<String> message)
+    {
+        if(isEnabled(type))
+        {
+            postEvent(new Event(type, message.get()));
+        }
+    }
+    
+    public void postEvent(EventType type, Supplier<String> message, Map<EventProperty, Object> properties)
+    {
+        if(isEnabled(type))
+        {
+            postEvent(new Event(type, message.get(), properties));
+        }
+    }
+    
     public void postEvent(Event event)
     {
-        postQueue.offer(event);
-        semaphore.release(1);
-        System.out.println(event);
+        if(!isEnabled(event.getType()))
+        {
+            return;
+        }
+        
+        bufferLock.lock();
+        try
+        {
+            if(count == buffer.length)
+            {
+                DeliveryPolicy policy = event.getType().getDeliveryPolicy();
+                // nothing drains the buffer until the first consumer shows up, so don't wait on it before then
+                if(policy == DeliveryPolicy.BLOCK && dispatchThread.isAlive())
+                {
+                    while(count == buffer.length)
+                    {
+                        notFull.awaitUninterruptibly();
+                    }
+                }
+                else
+                {
+                    if(policy == DeliveryPolicy.COALESCE)
+                    {
+                        coalesce(event);
+                    }
+                    return;
+                }
+            }
+            
+            buffer[(head + count) % buffer.length] = event;
+            count++;
+            notEmpty.signal();
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+    }
+    
+    private Event take() throws InterruptedException
+    {
+        bufferLock.lock();
+        try
+        {
+            while(count == 0)
+            {
+                notEmpty.await();
+            }
+            Event event = buffer[head];
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            count--;
+            notFull.signal();
+            return event;
+        }
+        finally
+        {
+            bufferLock.unlock();
+        }
+    }
+    
+    private void coalesce(Event event)
+    {
+        // newest first, since that's the one the replacement supersedes
+        for(int i = count - 1; i >= 0; i--)
+        {
+            int index = (head + i) % buffer.length;
+            if(supersedes(event, buffer[index]))
+            {
+                buffer[index] = event;
+                return;
+            }
+        }
+    }
+    
+    // a coalesced event only replaces an older one about the same thing, e.g. progress for the same clip rather than
+    // for any clip
+    private static boolean supersedes(Event newer, Event older)
+    {
+        return newer.getType() == older.getType()
+                && Objects.equals(newer.getProperties().get(EventProperty.CLIP_JOB),
+                                  older.getProperties().get(EventProperty.CLIP_JOB));
+    }
+    
+    // delivers events to one consumer in the order they were posted, independently of the other consumers. a slow
+    // consumer's backlog is bounded like the buffer: DROP events are dropped first, and make room for the others
+    private class Mailbox implements Runnable
+    {
+        private final EventConsumer consumer;
+        private final ArrayDeque<Event> pending;
+        private final ReentrantLock pendingLock;
+        private final Condition pendingNotFull;
+        private final AtomicBoolean scheduled;
+        
+        private Mailbox(EventConsumer consumer)
+        {
+            this.consumer = consumer;
+            pending = new ArrayDeque<>();
+            pendingLock = new ReentrantLock();
+            pendingNotFull = pendingLock.newCondition();
+            scheduled = new AtomicBoolean(false);
+        }
+        
+        // only called from the dispatch thread
+        private void deliver(Event event)
+        {
+            pendingLock.lock();
+            try
+            {
+                if(pending.size() >= MAILBOX_CAPACITY && !makeRoom(event))
+                {
+                    return;
+                }
+                pending.offer(event);
+            }
+            finally
+            {
+                pendingLock.unlock();
+            }
+            schedule();
+        }
+        
+        // false if the event should be dropped instead
+        private boolean makeRoom(Event event)
+        {
+            DeliveryPolicy policy = event.getType().getDeliveryPolicy();
+            if(policy == DeliveryPolicy.DROP)
+            {
+                return false;
+            }
+            if(policy == DeliveryPolicy.COALESCE)
+            {
+                Iterator<Event> newestFirst = pending.descendingIterator();
+                while(newestFirst.hasNext())
+                {
+                    if(supersedes(event, newestFirst.next()))
+                    {
+                        newestFirst.remove();
+                        return true;
+                    }
+                }
+            }
+            
+            Iterator<Event> oldestFirst = pending.iterator();
+            while(oldestFirst.hasNext())
+            {
+                if(oldestFirst.next().getType().getDeliveryPolicy() == DeliveryPolicy.DROP)
+                {
+                    oldestFirst.remove();
+                    return true;
+                }
+            }
+            if(policy == DeliveryPolicy.COALESCE)
+            {
+                return false;
+            }
+            
+            // nothing to give up for it, so wait for the consumer to catch up
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(MAILBOX_BLOCK_MILLIS);
+            while(pending.size() >= MAILBOX_CAPACITY && waitNanos > 0)
+            {
+                try
+                {
+                    waitNanos = pendingNotFull.awaitNanos(waitNanos);
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return true;
+        }
+        
+        private Event poll()
+        {
+            pendingLock.lock();
+            try
+            {
+                Event event = pending.poll();
+                pendingNotFull.signal();
+                return event;
+            }
+            finally
+            {
+                pendingLock.unlock();
+            }
+        }
+        
+        private boolean isEmpty()
+        {
+            pendingLock.lock();
+            try
+            {
+                return pending.isEmpty();
+            }
+            finally
+            {
+                pendingLock.unlock();
+            }
+        }
+        
+        private void schedule()
+        {
+            if(scheduled.compareAndSet(false, true))
+            {
+                deliveryExecutor.execute(this);
+            }
+        }
+        
+        @Override
+        public void run()
+        {
+            Event event;
+            int delivered = 0;
+            while(delivered++ < DELIVERY_BATCH_SIZE && (event = poll()) != null)
+            {
+                try
+                {
+                    consumer.post(event);
+                }
+                catch(RuntimeException e)
+                {
+                    Event failed = event;
+                    postEvent(EventType.DEBUG, () -> String.format("%s failed to handle %s: %s",
+                                                                   consumer.getClass().getSimpleName(),
+                                                                   failed.getType(), e));
+                }
+            }
+            
+            scheduled.set(false);
+            // anything that arrived after the last poll, or was left over from a full batch
+            if(!isEmpty())
+            {
+                schedule();
+            }
+        }
     }
 }
@@ -7,20 +7,37 @@ package io.github.trdesilva.autorecorder.event;
 
 public enum EventType
 {
-    SUCCESS,
-    FAILURE,
-    WARNING,
-    INFO,
-    RECORDING_START,
-    RECORDING_END,
-    CLIP_START,
-    CLIP_END,
-    UPLOAD_START,
-    UPLOAD_END,
-    MANUAL_RECORDING_START,
-    MANUAL_RECORDING_END,
-    SETTINGS_CHANGE,
-    BOOKMARK,
-    DEBUG,
-    THUMBNAIL_GENERATED
+    SUCCESS(DeliveryPolicy.BLOCK),
+    FAILURE(DeliveryPolicy.BLOCK),
+    WARNING(DeliveryPolicy.BLOCK),
+    INFO(DeliveryPolicy.BLOCK),
+    RECORDING_START(DeliveryPolicy.BLOCK),
+    RECORDING_END(DeliveryPolicy.BLOCK),
+    CLIP_START(DeliveryPolicy.BLOCK),
+    CLIP_END(DeliveryPolicy.BLOCK),
+    CLIP_PROGRESS(DeliveryPolicy.COALESCE),
+    UPLOAD_START(DeliveryPolicy.BLOCK),
+    UPLOAD_END(DeliveryPolicy.BLOCK),
+    MANUAL_RECORDING_START(DeliveryPolicy.BLOCK),
+    MANUAL_RECORDING_END(DeliveryPolicy.BLOCK),
+    SETTINGS_CHANGE(DeliveryPolicy.COALESCE),
+    BOOKMARK(DeliveryPolicy.BLOCK),
+    DEBUG(DeliveryPolicy.DROP),
+    THUMBNAIL_GENERATED(DeliveryPolicy.BLOCK),
+    METADATA_CACHE_STATS(DeliveryPolicy.COALESCE),
+    VIDEO_ADDED(DeliveryPolicy.BLOCK),
+    VIDEO_REMOVED(DeliveryPolicy.BLOCK),
+    VIDEO_MODIFIED(DeliveryPolicy.DROP);
+    
+    private final DeliveryPolicy deliveryPolicy;
+    
+    EventType(DeliveryPolicy deliveryPolicy)
+    {
+        this.deliveryPolicy = deliveryPolicy;
+    }
+    
+    public DeliveryPolicy getDeliveryPolicy()
+    {
+        return deliveryPolicy;
+    }
 }
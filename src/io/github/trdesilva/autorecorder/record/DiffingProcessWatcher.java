@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.record;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class DiffingProcessWatcher implements ProcessWatcher
+{
+    // ProcessHandle equality includes start time where the OS provides it, so reused PIDs still count as new
+    private final Set<ProcessHandle> seenProcesses;
+    
+    public DiffingProcessWatcher()
+    {
+        seenProcesses = new HashSet<>();
+    }
+    
+    @Override
+    public synchronized List<ProcessHandle> pollStartedProcesses()
+    {
+        // listing PIDs is cheap; it's ProcessHandle.info() that's expensive, so only new processes get returned for checking
+        Set<ProcessHandle> runningProcesses = ProcessHandle.allProcesses().collect(Collectors.toSet());
+        seenProcesses.retainAll(runningProcesses);
+        
+        List<ProcessHandle> startedProcesses = new LinkedList<>();
+        for(ProcessHandle process: runningProcesses)
+        {
+            if(seenProcesses.add(process))
+            {
+                startedProcesses.add(process);
+            }
+        }
+        
+        return startedProcesses;
+    }
+    
+    @Override
+    public Optional<ProcessHandle> findRunningProcess(Predicate<Path> commandMatcher)
+    {
+        return ProcessHandle.allProcesses()
+                            .filter(ph -> ph.info().command().isPresent())
+                            .filter(ph -> commandMatcher.test(Paths.get(ph.info().command().get())))
+                            .findFirst();
+    }
+    
+    @Override
+    public synchronized void reset()
+    {
+        seenProcesses.clear();
+    }
+}
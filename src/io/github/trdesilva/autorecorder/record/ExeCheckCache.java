@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.record;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+import org.joda.time.DateTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// remembers which process commands are games so the listener only classifies each exe once, even across restarts
+@Singleton
+public class ExeCheckCache
+{
+    private static final int MAX_ENTRIES = 4096;
+    // a non-game can only become a game through a settings change, which invalidates it anyway, so this is just a backstop
+    private static final long NEGATIVE_TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    private static final long SAVE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CacheContainer
+    {
+        // the game list the entries were checked against
+        public long lastFetchedGamesTimestamp;
+        public Set<String> additionalGames = new HashSet<>();
+        public Set<String> excludedGames = new HashSet<>();
+        
+        public Map<String, CheckResult> entries = new HashMap<>();
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CheckResult
+    {
+        // null if the command isn't a game
+        public String program;
+        public long checkedAt;
+        
+        public CheckResult()
+        {
+        }
+        
+        public CheckResult(String program, long checkedAt)
+        {
+            this.program = program;
+            this.checkedAt = checkedAt;
+        }
+    }
+    
+    private final Settings settings;
+    private final EventQueue events;
+    
+    private final ObjectMapper objectMapper;
+    private final File cacheFile;
+    private final Cache<Path, CheckResult> results;
+    
+    private long lastFetchedGamesTimestamp;
+    private Set<String> additionalGames;
+    private Set<String> excludedGames;
+    private boolean loaded;
+    private boolean dirty;
+    private long lastSaved;
+    
+    @Inject
+    public ExeCheckCache(Settings settings, EventQueue events)
+    {
+        this.settings = settings;
+        this.events = events;
+        
+        objectMapper = new ObjectMapper();
+        cacheFile = Settings.SETTINGS_DIR.resolve("exeCheckCache.json").toFile();
+        results = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+        
+        takeGameListSnapshot();
+    }
+    
+    public Optional<String> get(Path command, Function<Path, Optional<String>> checker)
+    {
+        long now = DateTime.now().getMillis();
+        CheckResult result = results.getIfPresent(command);
+        if(result == null || (result.program == null && now - result.checkedAt > NEGATIVE_TTL_MILLIS))
+        {
+            result = new CheckResult(checker.apply(command).orElse(null), now);
+            results.put(command, result);
+            synchronized(this)
+            {
+                dirty = true;
+            }
+        }
+        
+        return Optional.ofNullable(result.program);
+    }
+    
+    public synchronized void load()
+    {
+        if(loaded)
+        {
+            return;
+        }
+        loaded = true;
+        
+        if(!cacheFile.exists())
+        {
+            return;
+        }
+        
+        try
+        {
+            CacheContainer container = objectMapper.readValue(cacheFile, CacheContainer.class);
+            if(container.lastFetchedGamesTimestamp != settings.getLastFetchedGamesTimestamp())
+            {
+                events.postEvent(EventType.DEBUG, "Game list changed since exe checks were saved; discarding them");
+                return;
+            }
+            
+            for(Map.Entry<String, CheckResult> entry: container.entries.entrySet())
+            {
+                results.put(Paths.get(entry.getKey()), entry.getValue());
+            }
+            
+            // settings could have been edited by hand while we weren't running
+            lastFetchedGamesTimestamp = container.lastFetchedGamesTimestamp;
+            additionalGames = container.additionalGames;
+            excludedGames = container.excludedGames;
+            invalidateChangedGames();
+            events.postEvent(EventType.DEBUG, () -> "Loaded exe checks: " + results.size());
+        }
+        catch(IOException | RuntimeException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Failed to load exe checks: " + e.getMessage());
+        }
+    }
+    
+    public synchronized void saveIfDue()
+    {
+        if(dirty && DateTime.now().getMillis() - lastSaved > SAVE_INTERVAL_MILLIS)
+        {
+            save();
+        }
+    }
+    
+    public synchronized void save()
+    {
+        if(!dirty)
+        {
+            return;
+        }
+        
+        if(!cacheFile.getParentFile().exists())
+        {
+            cacheFile.getParentFile().mkdirs();
+        }
+        
+        CacheContainer container = new CacheContainer();
+        container.lastFetchedGamesTimestamp = lastFetchedGamesTimestamp;
+        container.additionalGames = additionalGames;
+        container.excludedGames = excludedGames;
+        for(Map.Entry<Path, CheckResult> entry: results.asMap().entrySet())
+        {
+            container.entries.put(entry.getKey().toString(), entry.getValue());
+        }
+        
+        try
+        {
+            objectMapper.writeValue(cacheFile, container);
+            dirty = false;
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Failed to save exe checks: " + e.getMessage());
+        }
+        lastSaved = DateTime.now().getMillis();
+    }
+    
+    // drops only the entries that the difference between the snapshot and the current settings could have changed
+    public synchronized void invalidateChangedGames()
+    {
+        if(lastFetchedGamesTimestamp != settings.getLastFetchedGamesTimestamp())
+        {
+            events.postEvent(EventType.DEBUG, "Game list refreshed; clearing exe checks");
+            results.invalidateAll();
+            dirty = true;
+            takeGameListSnapshot();
+            return;
+        }
+        
+        Set<String> currentAdditional = new HashSet<>(settings.getAdditionalGames());
+        Set<String> currentExcluded = new HashSet<>(settings.getExcludedGames());
+        Set<String> added = Sets.union(Sets.difference(currentAdditional, additionalGames),
+                                       Sets.difference(excludedGames, currentExcluded)).immutableCopy();
+        Set<String> removed = Sets.union(Sets.difference(additionalGames, currentAdditional),
+                                         Sets.difference(currentExcluded, excludedGames)).immutableCopy();
+        
+        if(!added.isEmpty() || !removed.isEmpty())
+        {
+            GameExecutableIndex addedIndex = GameExecutableIndex.build(added);
+            int invalidated = 0;
+            for(Map.Entry<Path, CheckResult> entry: results.asMap().entrySet())
+            {
+                String program = entry.getValue().program;
+                boolean stale = program == null ? addedIndex.match(entry.getKey()).isPresent()
+                                                : removed.contains(settings.formatExeName(program));
+                if(stale)
+                {
+                    results.invalidate(entry.getKey());
+                    invalidated++;
+                }
+            }
+            dirty = true;
+            int invalidatedCount = invalidated;
+            events.postEvent(EventType.DEBUG, () -> String.format("Game list edited (%d added, %d removed); invalidated %d exe checks",
+                                                                  added.size(), removed.size(), invalidatedCount));
+        }
+        
+        takeGameListSnapshot();
+    }
+    
+    private void takeGameListSnapshot()
+    {
+        lastFetchedGamesTimestamp = settings.getLastFetchedGamesTimestamp();
+        additionalGames = new HashSet<>(settings.getAdditionalGames());
+        excludedGames = new HashSet<>(settings.getExcludedGames());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.record;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// immutable trie of game executable paths keyed by path component, last component first, so a process's command can be
+// matched against every trailing subpath in one backwards walk over the command string
+public final class GameExecutableIndex
+{
+    public static final GameExecutableIndex EMPTY = new GameExecutableIndex(new Node(new String[1], new Node[1], false), 0);
+    
+    private final Node root;
+    private final int size;
+    
+    private GameExecutableIndex(Node root, int size)
+    {
+        this.root = root;
+        this.size = size;
+    }
+    
+    public static GameExecutableIndex build(Collection<String> exeNames)
+    {
+        NodeBuilder rootBuilder = new NodeBuilder();
+        int size = 0;
+        for(String exeName: exeNames)
+        {
+            NodeBuilder node = rootBuilder;
+            int end = exeName.length();
+            while(end > 0)
+            {
+                int start = end;
+                while(start > 0 && !isSeparator(exeName.charAt(start - 1)))
+                {
+                    start--;
+                }
+                if(start < end)
+                {
+                    node = node.children.computeIfAbsent(exeName.substring(start, end).toLowerCase(),
+                                                         k -> new NodeBuilder());
+                }
+                end = start - 1;
+            }
+            
+            if(node != rootBuilder && !node.terminal)
+            {
+                node.terminal = true;
+                size++;
+            }
+        }
+        
+        return new GameExecutableIndex(rootBuilder.build(), size);
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    public Optional<String> match(Path command)
+    {
+        return match(command.toString());
+    }
+    
+    // returns the shortest trailing subpath of the command that's a known game, in the command's original case
+    public Optional<String> match(String command)
+    {
+        Node node = root;
+        int end = command.length();
+        while(end > 0)
+        {
+            int start = end;
+            while(start > 0 && !isSeparator(command.charAt(start - 1)))
+            {
+                start--;
+            }
+            
+            if(start < end)
+            {
+                node = node.child(command, start, end);
+                if(node == null)
+                {
+                    return Optional.empty();
+                }
+                if(node.terminal)
+                {
+                    return Optional.of(command.substring(start));
+                }
+            }
+            end = start - 1;
+        }
+        
+        return Optional.empty();
+    }
+    
+    private static boolean isSeparator(char c)
+    {
+        return c == '\\' || c == '/';
+    }
+    
+    private static int hash(CharSequence s, int start, int end)
+    {
+        int h = 0;
+        for(int i = start; i < end; i++)
+        {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        // spread the high bits since tables are masked to their low bits
+        return h ^ (h >>> 16);
+    }
+    
+    private static class Node
+    {
+        // open-addressed table of children, sized to a power of two
+        private final String[] labels;
+        private final Node[] children;
+        private final boolean terminal;
+        
+        private Node(String[] labels, Node[] children, boolean terminal)
+        {
+            this.labels = labels;
+            this.children = children;
+            this.terminal = terminal;
+        }
+        
+        private Node child(String command, int start, int end)
+        {
+            int length = end - start;
+            int mask = labels.length - 1;
+            for(int i = hash(command, start, end) & mask; labels[i] != null; i = (i + 1) & mask)
+            {
+                String label = labels[i];
+                if(label.length() == length && command.regionMatches(true, start, label, 0, length))
+                {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static class NodeBuilder
+    {
+        private final Map<String, NodeBuilder> children = new HashMap<>();
+        private boolean terminal;
+        
+        private Node build()
+        {
+            // keep the table at most half full so probe chains stay short and there's always an empty slot
+            int capacity = Integer.highestOneBit(Math.max(1, children.size()) * 2) * 2;
+            String[] labels = new String[capacity];
+            Node[] nodes = new Node[capacity];
+            int mask = capacity - 1;
+            for(Map.Entry<String, NodeBuilder> entry: children.entrySet())
+            {
+                String label = entry.getKey();
+                int i = hash(label, 0, label.length()) & mask;
+                while(labels[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                labels[i] = label;
+                nodes[i] = entry.getValue().build();
+            }
+            
+            return new Node(labels, nodes, terminal);
+        }
+    }
+}
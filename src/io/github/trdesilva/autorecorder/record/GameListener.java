@@ -25,7 +25,7 @@ import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -35,102 +35,96 @@ public class GameListener implements AutoCloseable, EventConsumer
     private static final Set<EventType> EVENT_TYPES = Sets.immutableEnumSet(EventType.SETTINGS_CHANGE,
                                                                             EventType.MANUAL_RECORDING_START,
                                                                             EventType.MANUAL_RECORDING_END);
+    private static final long POLL_INTERVAL_MS = 250;
+    
     private final Obs obs;
     private final Settings settings;
     private final EventQueue events;
+    private final ProcessWatcher processWatcher;
+    private final ExeCheckCache exeCheckResults;
     
-    private final ConcurrentHashMap<Path, Optional<String>> exeCheckResults;
     private final AtomicBoolean recording;
     // when set, don't allow the listener to start recordings
     private final AtomicBoolean forceDisableListening;
     // when set, don't allow the listener to stop recordings
     private final AtomicBoolean forceRecording;
     private final AtomicReference<String> currentGame;
+    private final AtomicReference<CompletableFuture<ProcessHandle>> gameExit;
     
     private Thread thread;
     
     @Inject
-    public GameListener(Obs obs, Settings settings, EventQueue events)
+    public GameListener(Obs obs, Settings settings, EventQueue events, ProcessWatcher processWatcher,
+                        ExeCheckCache exeCheckResults)
     {
         this.obs = obs;
         this.settings = settings;
         this.events = events;
+        this.processWatcher = processWatcher;
+        this.exeCheckResults = exeCheckResults;
         
-        exeCheckResults = new ConcurrentHashMap<>();
         recording = new AtomicBoolean(false);
         forceDisableListening = new AtomicBoolean(false);
         forceRecording = new AtomicBoolean(false);
         currentGame = new AtomicReference<>();
+        gameExit = new AtomicReference<>();
         
         events.addConsumer(this);
     }
     
     public void startListener()
     {
-        events.postEvent(new Event(EventType.DEBUG, "Starting listener thread"));
+        events.postEvent(EventType.DEBUG, "Starting listener thread");
+        // rescan everything that's already running, like a game that was open before the listener started
+        processWatcher.reset();
+        exeCheckResults.load();
         thread = new Thread(() ->
                             {
                                 while(true)
                                 {
                                     if(!recording.get() && !forceDisableListening.get())
                                     {
-                                        ProcessHandle.allProcesses().forEach(ph -> {
+                                        for(ProcessHandle ph: processWatcher.pollStartedProcesses())
+                                        {
                                             // some game exes are identified by more of their path than just filename
-                                            if(ph.info().command().isPresent())
+                                            Optional<String> command = ph.info().command();
+                                            if(command.isPresent())
                                             {
-                                                Path command = Paths.get(ph.info().command().orElse(""));
-                                                if(!exeCheckResults.containsKey(command))
+                                                Optional<String> program = checkExe(Paths.get(command.get()));
+                                                if(program.isPresent())
                                                 {
-                                                    Optional<String> programOptional = Optional.empty();
-                                                    for(int i = 1; i <= command.getNameCount(); i++)
+                                                    startRecording(program.get());
+                                                    if(recording.get())
                                                     {
-                                                        String program = command.subpath(
-                                                                                        command.getNameCount() - i,
-                                                                                        command.getNameCount())
-                                                                                .toString();
-                                                        if(settings.getGames()
-                                                                   .contains(settings.formatExeName(program)))
-                                                        {
-                                                            programOptional = Optional.of(program);
-                                                            break;
-                                                        }
+                                                        watchGameProcess(ph);
                                                     }
-                                
-                                                    exeCheckResults.put(command, programOptional);
-                                                }
-                            
-                                                if(exeCheckResults.containsKey(command) && exeCheckResults.get(command)
-                                                                                                          .isPresent())
-                                                {
-                                                    String program = exeCheckResults.get(command).get();
-                                                    startRecording(program);
+                                                    break;
                                                 }
                                             }
-                                        });
+                                        }
+                                        exeCheckResults.saveIfDue();
                                     }
                                     else if(!forceRecording.get())
                                     {
                                         if(!settings.getGames().contains(settings.formatExeName(currentGame.get()))
-                                                || ProcessHandle.allProcesses()
-                                                                .noneMatch(
-                                                                        ph -> Paths.get(ph.info().command().orElse(""))
-                                                                                   .endsWith(currentGame.get())))
+                                                || hasGameExited())
                                         {
                                             stopRecording();
                                             // allow listener to start recordings again now that the game we force-stopped has terminated
                                             forceDisableListening.set(false);
                                             // currentGame exists for the listener to keep track of its state, so updating here is fine
                                             currentGame.set(null);
+                                            gameExit.set(null);
                                         }
                                     }
                 
                                     try
                                     {
-                                        Thread.sleep(1000);
+                                        Thread.sleep(POLL_INTERVAL_MS);
                                     }
                                     catch(InterruptedException e)
                                     {
-                                        events.postEvent(new Event(EventType.DEBUG, "Game listening ended"));
+                                        events.postEvent(EventType.DEBUG, "Game listening ended");
                                         return;
                                     }
                                 }
@@ -144,7 +138,7 @@ public class GameListener implements AutoCloseable, EventConsumer
         thread.interrupt();
         if(recording.get())
         {
-            events.postEvent(new Event(EventType.DEBUG, "thread shutting down, stopping recording"));
+            events.postEvent(EventType.DEBUG, "thread shutting down, stopping recording");
             obs.stop();
         }
     }
@@ -155,7 +149,7 @@ public class GameListener implements AutoCloseable, EventConsumer
         {
             if(recording.get())
             {
-                events.postEvent(new Event(EventType.DEBUG, String.format("Tried to record %s but already recording %s", program, currentGame.get())));
+                events.postEvent(EventType.DEBUG, () -> String.format("Tried to record %s but already recording %s", program, currentGame.get()));
                 return;
             }
             recording.set(true);
@@ -186,16 +180,44 @@ public class GameListener implements AutoCloseable, EventConsumer
     {
         if(!recording.get())
         {
-            events.postEvent(new Event(EventType.DEBUG, "Tried to stop recording, but recording is already stopped"));
+            events.postEvent(EventType.DEBUG, "Tried to stop recording, but recording is already stopped");
             return;
         }
         
         events.postEvent(new Event(EventType.RECORDING_END,
                                    "Stopped recording " + currentGame.get()));
         obs.stop();
+        // the poll that started this recording stopped at the first game, and nothing's polled while recording, so
+        // check everything that's running again. the exe check results are cached, so this is cheap
+        processWatcher.reset();
         recording.set(false);
     }
     
+    private Optional<String> checkExe(Path command)
+    {
+        return exeCheckResults.get(command, c -> settings.getGameIndex().match(c));
+    }
+    
+    private void watchGameProcess(ProcessHandle process)
+    {
+        gameExit.set(process.onExit());
+    }
+    
+    private boolean hasGameExited()
+    {
+        CompletableFuture<ProcessHandle> exit = gameExit.get();
+        if(exit != null && !exit.isDone())
+        {
+            return false;
+        }
+        
+        // the process we were watching is gone, but games sometimes relaunch themselves, so look for another instance
+        String game = currentGame.get();
+        Optional<ProcessHandle> otherInstance = processWatcher.findRunningProcess(command -> command.endsWith(game));
+        otherInstance.ifPresent(this::watchGameProcess);
+        return otherInstance.isEmpty();
+    }
+    
     private String getRecordingNameFormat(String program)
     {
         String safeName;
@@ -221,6 +243,7 @@ public class GameListener implements AutoCloseable, EventConsumer
     public void close() throws Exception
     {
         stopListener();
+        exeCheckResults.save();
     }
     
     @Override
@@ -228,19 +251,22 @@ public class GameListener implements AutoCloseable, EventConsumer
     {
         if(event.getType().equals(EventType.SETTINGS_CHANGE))
         {
-            exeCheckResults.clear();
+            exeCheckResults.invalidateChangedGames();
+            processWatcher.reset();
         }
         else if(event.getType().equals(EventType.MANUAL_RECORDING_START))
         {
             // if we're resuming an automatic recording, restore the listener to its normal state
             if(forceDisableListening.get())
             {
-                events.postEvent(new Event(EventType.DEBUG, "Resuming automatic recording"));
+                events.postEvent(EventType.DEBUG, "Resuming automatic recording");
+                // the game was already seen when it launched, so let the listener pick it up again
+                processWatcher.reset();
                 forceDisableListening.set(false);
             }
             else // and if we're starting a manual recording, stop the listener from ending the manual recording
             {
-                events.postEvent(new Event(EventType.DEBUG, "Starting manual recording"));
+                events.postEvent(EventType.DEBUG, "Starting manual recording");
                 forceRecording.set(true);
                 startRecording("(Manual)");
             }
@@ -250,13 +276,13 @@ public class GameListener implements AutoCloseable, EventConsumer
             // if we're stopping a manual recording, restore the listener to its normal state
             if(forceRecording.get())
             {
-                events.postEvent(new Event(EventType.DEBUG, "Stopping manual recording"));
+                events.postEvent(EventType.DEBUG, "Stopping manual recording");
                 forceRecording.set(false);
                 currentGame.set(null);
             }
             else // and if we're stopping an automatic recording, stop the listener from starting new recordings
             {
-                events.postEvent(new Event(EventType.DEBUG, "Stopping automatic recording"));
+                events.postEvent(EventType.DEBUG, "Stopping automatic recording");
                 // don't clear currentGame here so the listener can reenable itself after currentGame terminates
                 forceDisableListening.set(true);
             }
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.record;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+public interface ProcessWatcher
+{
+    // processes that have started since the last poll; the first poll after a reset returns every running process
+    List<ProcessHandle> pollStartedProcesses();
+    Optional<ProcessHandle> findRunningProcess(Predicate<Path> commandMatcher);
+    void reset();
+}
@@ -53,7 +53,10 @@ public class ClipTrimmerCli extends Cli
                         {
                             String recordingExtension = recording.substring(recording.lastIndexOf('.'));
                             print("Clipping...");
-                            clipTrimmer.makeClip(recording, clipName + recordingExtension, start, end);
+                            // rewritten in place on one line as ffmpeg reports in
+                            clipTrimmer.makeClip(recording, clipName + recordingExtension, start, end, 0,
+                                                 progress -> System.out.printf("\rClipping... %-40s", progress));
+                            System.out.println();
                             print("Clip %s created in %s", clipName, settings.getClipPath());
                         }
                         catch(Exception e)
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.ui.cli;
+
+import com.google.inject.Inject;
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventType;
+import org.joda.time.DateTime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class HistoryCli extends Cli
+{
+    public static final String RECENT = "Recent events";
+    public static final String BY_TYPE = "Events of one type";
+    public static final String BY_THREAD = "Events from one thread";
+    public static final String LAST_MINUTES = "Events from the last few minutes";
+    
+    private static final int RECENT_COUNT = 50;
+    
+    private final EventHistory history;
+    
+    @Inject
+    public HistoryCli(Settings settings, EventHistory history)
+    {
+        super(settings);
+        this.history = history;
+    }
+    
+    @Override
+    public void run()
+    {
+        while(true)
+        {
+            String answer = chooseFromList("What do you want to see?", RECENT, BY_TYPE, BY_THREAD, LAST_MINUTES);
+            if(answer.equals(RECENT))
+            {
+                printEvents(history.getRecent(RECENT_COUNT));
+            }
+            else if(answer.equals(BY_TYPE))
+            {
+                String[] typeNames = Arrays.stream(EventType.values()).map(EventType::name).toArray(String[]::new);
+                String typeName = chooseFromList("Pick a type:", typeNames);
+                if(!typeName.equals("exit"))
+                {
+                    Set<EventType> types = Collections.singleton(EventType.valueOf(typeName));
+                    printEvents(history.query(types, null, null, null, EventHistory.CAPACITY));
+                }
+            }
+            else if(answer.equals(BY_THREAD))
+            {
+                print("Enter a thread name");
+                printEvents(history.query(null, null, null, readLine(), EventHistory.CAPACITY));
+            }
+            else if(answer.equals(LAST_MINUTES))
+            {
+                print("Enter a number of minutes");
+                try
+                {
+                    int minutes = Integer.parseInt(readLine());
+                    printEvents(history.query(null, DateTime.now().minusMinutes(minutes), null, null,
+                                              EventHistory.CAPACITY));
+                }
+                catch(NumberFormatException e)
+                {
+                    print("Not a valid number");
+                }
+            }
+            else if(answer.equals("exit"))
+            {
+                return;
+            }
+        }
+    }
+    
+    private void printEvents(List<Event> events)
+    {
+        if(events.isEmpty())
+        {
+            print("No matching events");
+        }
+        for(Event event: events)
+        {
+            print("%s", event);
+        }
+    }
+}
@@ -13,14 +13,17 @@ public class MainCli extends Cli
     private final ClipTrimmerCli clipTrimmerCli;
     private final SettingsCli settingsCli;
     private final UploaderCli uploaderCli;
+    private final HistoryCli historyCli;
     
     @Inject
-    public MainCli(Settings settings, ClipTrimmerCli clipTrimmerCli, SettingsCli settingsCli, UploaderCli uploaderCli)
+    public MainCli(Settings settings, ClipTrimmerCli clipTrimmerCli, SettingsCli settingsCli, UploaderCli uploaderCli,
+                   HistoryCli historyCli)
     {
         super(settings);
         this.clipTrimmerCli = clipTrimmerCli;
         this.settingsCli = settingsCli;
         this.uploaderCli = uploaderCli;
+        this.historyCli = historyCli;
     }
     
     @Override
@@ -29,7 +32,7 @@ public class MainCli extends Cli
         while(true)
         {
             print("Main menu");
-            String answer = chooseFromList("Pick something:", "clip", "upload", "settings");
+            String answer = chooseFromList("Pick something:", "clip", "upload", "settings", "history");
             if(answer.equals("clip"))
             {
                 clipTrimmerCli.run();
@@ -42,6 +45,10 @@ public class MainCli extends Cli
             {
                 settingsCli.run();
             }
+            else if(answer.equals("history"))
+            {
+                historyCli.run();
+            }
             else if(answer.equals("exit"))
             {
                 return;
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.ui.gui;
+
+import com.google.inject.Inject;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventHistory;
+import io.github.trdesilva.autorecorder.event.EventType;
+import io.github.trdesilva.autorecorder.ui.gui.wrapper.DefaultPanel;
+import net.miginfocom.swing.MigLayout;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class HistoryPanel extends DefaultPanel
+{
+    private static final String ALL_TYPES = "All types";
+    private static final String ALL_THREADS = "All threads";
+    private static final String[] RANGES = {"Whole session", "Last 5 minutes", "Last 30 minutes", "Last 2 hours"};
+    private static final int[] RANGE_MINUTES = {0, 5, 30, 120};
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormat.forPattern("HH:mm:ss.SSS");
+    
+    private final EventHistory history;
+    
+    private final JComboBox<String> typeBox;
+    private final JComboBox<String> rangeBox;
+    private final JComboBox<String> threadBox;
+    private final DefaultTableModel tableModel;
+    
+    @Inject
+    public HistoryPanel(EventHistory history)
+    {
+        this.history = history;
+        
+        setLayout(new MigLayout("fill", "[][][][grow][]", "[][grow]"));
+        
+        typeBox = new JComboBox<>();
+        typeBox.addItem(ALL_TYPES);
+        for(EventType type: EventType.values())
+        {
+            typeBox.addItem(type.name());
+        }
+        rangeBox = new JComboBox<>(RANGES);
+        threadBox = new JComboBox<>();
+        threadBox.addItem(ALL_THREADS);
+        JButton refreshButton = new JButton("Refresh");
+        
+        tableModel = new DefaultTableModel(new String[]{"Time", "Type", "Thread", "Message"}, 0)
+        {
+            @Override
+            public boolean isCellEditable(int row, int column)
+            {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(90);
+        table.getColumnModel().getColumn(1).setPreferredWidth(90);
+        table.getColumnModel().getColumn(2).setPreferredWidth(150);
+        table.getColumnModel().getColumn(3).setPreferredWidth(450);
+        JScrollPane scrollPane = new JScrollPane(table);
+        
+        add(new JLabel("Show"), "cell 0 0");
+        add(typeBox, "cell 1 0");
+        add(rangeBox, "cell 2 0");
+        add(threadBox, "cell 3 0");
+        add(refreshButton, "cell 4 0");
+        add(scrollPane, "cell 0 1, span 5, grow");
+        
+        refreshButton.addActionListener(e -> update());
+        typeBox.addActionListener(e -> update());
+        rangeBox.addActionListener(e -> update());
+        threadBox.addActionListener(e -> update());
+    }
+    
+    public void update()
+    {
+        String selectedType = (String) typeBox.getSelectedItem();
+        Set<EventType> types = ALL_TYPES.equals(selectedType) ? null
+                                                              : Collections.singleton(EventType.valueOf(selectedType));
+        int rangeMinutes = RANGE_MINUTES[rangeBox.getSelectedIndex()];
+        DateTime from = rangeMinutes == 0 ? null : DateTime.now().minusMinutes(rangeMinutes);
+        String selectedThread = (String) threadBox.getSelectedItem();
+        String thread = ALL_THREADS.equals(selectedThread) ? null : selectedThread;
+        
+        List<Event> events = history.query(types, from, null, thread, EventHistory.CAPACITY);
+        tableModel.setRowCount(0);
+        // newest at the top, since that's usually what you're looking for
+        for(int i = events.size() - 1; i >= 0; i--)
+        {
+            Event event = events.get(i);
+            tableModel.addRow(new Object[]{TIME_FORMAT.print(event.getTimestamp()), event.getType().name(),
+                                           event.getSourceThread(), event.getMessage()});
+        }
+        
+        updateThreads(selectedThread);
+    }
+    
+    private void updateThreads(String selectedThread)
+    {
+        Set<String> threads = new TreeSet<>();
+        for(Event event: history.getRecent(EventHistory.CAPACITY))
+        {
+            threads.add(event.getSourceThread());
+        }
+        
+        // swapping the items fires action events, which would otherwise refresh the table again
+        ActionListener[] listeners = threadBox.getActionListeners();
+        for(ActionListener listener: listeners)
+        {
+            threadBox.removeActionListener(listener);
+        }
+        threadBox.removeAllItems();
+        threadBox.addItem(ALL_THREADS);
+        threads.forEach(threadBox::addItem);
+        threadBox.setSelectedItem(selectedThread);
+        for(ActionListener listener: listeners)
+        {
+            threadBox.addActionListener(listener);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventConsumer;
+import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import net.miginfocom.swing.MigLayout;
@@ -21,6 +22,8 @@ import java.awt.Image;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 public class IndicatorPanel extends JPanel implements EventConsumer
@@ -40,6 +43,8 @@ public class IndicatorPanel extends JPanel implements EventConsumer
     private JLabel recordingIndicator;
     private JLabel uploadIndicator;
     private JLabel clipIndicator;
+    // clips are made in parallel, so the indicator stays up until the last one finishes
+    private final Map<Object, Event> activeClips = new LinkedHashMap<>();
     
     @Inject
     public IndicatorPanel(EventQueue events)
@@ -69,7 +74,7 @@ public class IndicatorPanel extends JPanel implements EventConsumer
         }
         catch(IOException e)
         {
-            events.postEvent(new Event(EventType.DEBUG, "Failed to load icons: " + e.toString()));
+            events.postEvent(EventType.DEBUG, () -> "Failed to load icons: " + e.toString());
             recordingOnIcon = null;
             recordingOffIcon = null;
             uploadIcon = null;
@@ -190,14 +195,27 @@ public class IndicatorPanel extends JPanel implements EventConsumer
         }
     }
     
-    private void setClipIndicatorState(Event event)
+    private synchronized void setClipIndicatorState(Event event)
     {
-        boolean isClipping = event.getType() == EventType.CLIP_START;
-        if(isClipping)
+        Object job = event.getProperties().get(EventProperty.CLIP_JOB);
+        if(event.getType() == EventType.CLIP_START)
         {
+            activeClips.put(job, event);
+        }
+        else
+        {
+            activeClips.remove(job);
+        }
+        
+        if(!activeClips.isEmpty())
+        {
+            Event earliest = activeClips.values().iterator().next();
             clipIndicator.setVisible(true);
-            clipIndicator.setToolTipText(
-                    String.format("%s (started at %s)", event.getMessage(), event.getTimestamp().toLocalTime()));
+            clipIndicator.setToolTipText(activeClips.size() == 1
+                                         ? String.format("%s (started at %s)", earliest.getMessage(),
+                                                         earliest.getTimestamp().toLocalTime())
+                                         : String.format("Making %d clips (first started at %s)", activeClips.size(),
+                                                         earliest.getTimestamp().toLocalTime()));
         }
         else
         {
@@ -20,6 +20,8 @@ import io.github.trdesilva.autorecorder.ui.gui.record.RecordingListPanel;
 import io.github.trdesilva.autorecorder.ui.gui.settings.SettingsPanel;
 import io.github.trdesilva.autorecorder.upload.UploadQueue;
 import io.github.trdesilva.autorecorder.video.BookmarkListener;
+import io.github.trdesilva.autorecorder.video.FfprobePool;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
 import io.github.trdesilva.autorecorder.video.YoutubeMetadataRefresher;
 import net.miginfocom.swing.MigLayout;
 
@@ -58,13 +60,17 @@ public class MainWindow implements Navigator
     private final BookmarkListener bookmarkListener;
     private final WindowCloseHandler windowCloseHandler;
     private final YoutubeMetadataRefresher youtubeMetadataRefresher;
+    private final FfprobePool ffprobePool;
+    private final VideoMetadataHandler metadataHandler;
     
     @Inject
     public MainWindow(Settings settings, RecordingListPanel recordingListPanel, ClipListPanel clipListPanel,
                       SettingsPanel settingsPanel, ClippingPanel clippingPanel, UploadPanel uploadPanel,
-                      LicensePanel licensePanel, StatusPanel statusPanel, EventQueue eventQueue, ClipQueue clipQueue,
-                      UploadQueue uploadQueue, GameListener gameListener, BookmarkListener bookmarkListener,
-                      WindowCloseHandler windowCloseHandler, YoutubeMetadataRefresher youtubeMetadataRefresher)
+                      LicensePanel licensePanel, HistoryPanel historyPanel, StatusPanel statusPanel,
+                      EventQueue eventQueue, ClipQueue clipQueue, UploadQueue uploadQueue,
+                      GameListener gameListener, BookmarkListener bookmarkListener,
+                      WindowCloseHandler windowCloseHandler, YoutubeMetadataRefresher youtubeMetadataRefresher,
+                      FfprobePool ffprobePool, VideoMetadataHandler metadataHandler)
     {
         // components
         mainFrame = new JFrame("Autorecorder");
@@ -83,6 +89,7 @@ public class MainWindow implements Navigator
         tabbedPane.add("Recordings", recordingListPanel);
         tabbedPane.add("Clips", clipListPanel);
         tabbedPane.add("Settings", settingsPanel);
+        tabbedPane.add("History", historyPanel);
         tabbedPane.setSelectedIndex(0);
         
         this.clippingPanel = clippingPanel;
@@ -114,6 +121,8 @@ public class MainWindow implements Navigator
         this.windowCloseHandler = windowCloseHandler;
     
         this.youtubeMetadataRefresher = youtubeMetadataRefresher;
+        this.ffprobePool = ffprobePool;
+        this.metadataHandler = metadataHandler;
         
         metaPanel.add(mainPanel, "cell 0 0, grow");
         metaPanel.add(statusPanel, "cell 0 1, growx, growy");
@@ -133,6 +142,10 @@ public class MainWindow implements Navigator
             {
                 clipListPanel.update(true);
             }
+            else if(tabIndex == tabbedPane.indexOfTab("History"))
+            {
+                historyPanel.update();
+            }
         });
         
         mainPanel.addComponentListener(new ComponentAdapter() {
@@ -180,7 +193,7 @@ public class MainWindow implements Navigator
             }
             catch(GeneralSecurityException|IOException e)
             {
-                eventQueue.postEvent(new Event(EventType.DEBUG, "Refreshing upload URLs failed: " + e.getMessage()));
+                eventQueue.postEvent(EventType.DEBUG, () -> "Refreshing upload URLs failed: " + e.getMessage());
             }
         }, "Youtube metadata refresh thread").start();
         
@@ -188,6 +201,9 @@ public class MainWindow implements Navigator
         windowCloseHandler.addCloseable(uploadQueue);
         windowCloseHandler.addCloseable(gameListener);
         windowCloseHandler.addCloseable(bookmarkListener);
+        windowCloseHandler.addCloseable(ffprobePool);
+        // last, since everything before it may still be saving metadata as it stops
+        windowCloseHandler.addCloseable(metadataHandler);
         
         mainFrame.addWindowListener(windowCloseHandler);
         
@@ -200,7 +216,7 @@ public class MainWindow implements Navigator
     @Override
     public void showClipView(File videoFile)
     {
-        eventQueue.postEvent(new Event(EventType.DEBUG, "showing clippingView"));
+        eventQueue.postEvent(EventType.DEBUG, "showing clippingView");
         clippingPanel.setRecording(videoFile);
         mainLayout.show(mainPanel, "clippingView");
     }
@@ -208,7 +224,7 @@ public class MainWindow implements Navigator
     @Override
     public void showUploadView(File videoFile)
     {
-        eventQueue.postEvent(new Event(EventType.DEBUG, "showing uploadView"));
+        eventQueue.postEvent(EventType.DEBUG, "showing uploadView");
         uploadPanel.setRecording(videoFile);
         mainLayout.show(mainPanel, "uploadView");
     }
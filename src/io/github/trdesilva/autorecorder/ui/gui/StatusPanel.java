@@ -7,6 +7,8 @@ package io.github.trdesilva.autorecorder.ui.gui;
 
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import io.github.trdesilva.autorecorder.clip.ClipJob;
+import io.github.trdesilva.autorecorder.clip.ClipProgress;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventConsumer;
 import io.github.trdesilva.autorecorder.event.EventProperty;
@@ -17,6 +19,7 @@ import net.miginfocom.swing.MigLayout;
 
 import javax.inject.Named;
 import javax.swing.JLabel;
+import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import java.awt.Color;
@@ -28,6 +31,8 @@ import java.awt.event.MouseListener;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
@@ -39,12 +44,18 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
                                                                             EventType.FAILURE,
                                                                             EventType.WARNING,
                                                                             EventType.INFO,
-                                                                            EventType.DEBUG);
+                                                                            EventType.DEBUG,
+                                                                            EventType.CLIP_PROGRESS,
+                                                                            EventType.CLIP_END);
     private final EventQueue events;
     private final IndicatorPanel indicatorPanel;
     private final boolean isDebugMode;
     
     private final JLabel messageLabel;
+    private final JProgressBar clipProgressBar;
+    
+    // only touched on the EDT
+    private final Map<ClipJob, ClipProgress> clipProgress;
     
     private ConcurrentLinkedQueue<Event> messageQueue;
     private Semaphore semaphore;
@@ -58,12 +69,17 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
         this.indicatorPanel = indicatorPanel;
         this.isDebugMode = isDebugMode;
         
-        setLayout(new MigLayout("fill", "[grow][]", "[grow]"));
+        setLayout(new MigLayout("fill", "[grow][][]", "[grow]"));
         
         messageLabel = new JLabel("Welcome to Autorecorder");
+        clipProgressBar = new JProgressBar(0, 1000);
+        clipProgressBar.setStringPainted(true);
+        clipProgressBar.setVisible(false);
+        clipProgress = new LinkedHashMap<>();
         
         add(messageLabel, "cell 0 0, growx, growy, dock west, gapleft 4");
-        add(this.indicatorPanel, "cell 1 0, growy, dock east");
+        add(clipProgressBar, "cell 1 0, width 200!, aligny center, hidemode 3");
+        add(this.indicatorPanel, "cell 2 0, growy, dock east");
         
         messageQueue = new ConcurrentLinkedQueue<>();
         semaphore = new Semaphore(0);
@@ -77,6 +93,15 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
     @Override
     public synchronized void post(Event event)
     {
+        // these come in several times a second, so they go straight to the progress bar rather than waiting their turn
+        // behind the messages
+        if(event.getType() == EventType.CLIP_PROGRESS || event.getType() == EventType.CLIP_END)
+        {
+            ClipJob job = (ClipJob) event.getProperties().get(EventProperty.CLIP_JOB);
+            ClipProgress progress = (ClipProgress) event.getProperties().get(EventProperty.CLIP_PROGRESS);
+            SwingUtilities.invokeLater(() -> updateClipProgress(job, progress));
+            return;
+        }
         messageQueue.offer(event);
         semaphore.release();
     }
@@ -87,6 +112,40 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
         return EVENT_TYPES;
     }
     
+    // progress is null when the clip's done
+    private void updateClipProgress(ClipJob job, ClipProgress progress)
+    {
+        if(progress != null)
+        {
+            clipProgress.put(job, progress);
+        }
+        else
+        {
+            clipProgress.remove(job);
+        }
+        
+        if(clipProgress.isEmpty())
+        {
+            clipProgressBar.setVisible(false);
+            return;
+        }
+        if(clipProgress.size() == 1)
+        {
+            Map.Entry<ClipJob, ClipProgress> only = clipProgress.entrySet().iterator().next();
+            clipProgressBar.setValue((int) (only.getValue().getFraction() * 1000));
+            clipProgressBar.setString(only.getValue().toString());
+            clipProgressBar.setToolTipText(only.getKey().getDest());
+        }
+        else
+        {
+            double fraction = clipProgress.values().stream().mapToDouble(ClipProgress::getFraction).average().orElse(0);
+            clipProgressBar.setValue((int) (fraction * 1000));
+            clipProgressBar.setString(String.format("%d clips, %d%%", clipProgress.size(), (int) (fraction * 100)));
+            clipProgressBar.setToolTipText(null);
+        }
+        clipProgressBar.setVisible(true);
+    }
+    
     private void consume()
     {
         while(true)
@@ -97,7 +156,7 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
             }
             catch(InterruptedException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "StatusPanel consumer thread interrupted"));
+                events.postEvent(EventType.DEBUG, "StatusPanel consumer thread interrupted");
                 return;
             }
             
@@ -149,7 +208,7 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
                                 }
                                 catch(URISyntaxException | IOException ex)
                                 {
-                                    events.postEvent(new Event(EventType.DEBUG, "Link navigation failed: " + link));
+                                    events.postEvent(EventType.DEBUG, () -> "Link navigation failed: " + link);
                                 }
                             }
                         };
@@ -171,7 +230,7 @@ public class StatusPanel extends DefaultPanel implements EventConsumer
                 }
                 catch(InterruptedException e)
                 {
-                    events.postEvent(new Event(EventType.DEBUG, "status panel thread interrupted"));
+                    events.postEvent(EventType.DEBUG, "status panel thread interrupted");
                 }
             }
         }
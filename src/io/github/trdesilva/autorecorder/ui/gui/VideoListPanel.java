@@ -13,6 +13,7 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventConsumer;
+import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.ui.gui.wrapper.WrappingLabel;
@@ -55,6 +56,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public class VideoListPanel extends JScrollPane implements EventConsumer
@@ -71,7 +73,10 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
         TILES
     }
     
-    private static final Set<EventType> EVENT_TYPES = Sets.immutableEnumSet(EventType.RECORDING_END);
+    private static final Set<EventType> EVENT_TYPES = Sets.immutableEnumSet(EventType.RECORDING_END,
+                                                                            EventType.VIDEO_ADDED,
+                                                                            EventType.VIDEO_REMOVED,
+                                                                            EventType.SETTINGS_CHANGE);
     
     private final EventQueue events;
     private final VideoListCellRenderer renderer;
@@ -79,6 +84,7 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
     
     private final JList<File> videos;
     private SortOrder sortOrder;
+    private final AtomicBoolean refreshPending;
     
     @AssistedInject
     public VideoListPanel(EventQueue events, VideoListCellRenderer renderer, @Assisted VideoListHandler videoListHandler, @Assisted VideoInfoPanel selectionConsumer)
@@ -87,7 +93,9 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
         this.renderer = renderer;
         
         this.videoListHandler = videoListHandler;
-        videos = new JList<>(videoListHandler.getVideoList().toArray(new File[0]));
+        List<File> videoList = videoListHandler.getVideoList();
+        videos = new JList<>(videoList.toArray(new File[0]));
+        videoListHandler.prefetchMetadata(videoList);
         videos.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         this.renderer.setShowBookmarks(videoListHandler.getType() == VideoType.RECORDING);
         videos.setCellRenderer(renderer);
@@ -95,6 +103,7 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
         videos.setVisibleRowCount(-1);
         
         sortOrder = SortOrder.DATE;
+        refreshPending = new AtomicBoolean();
         
         videos.addListSelectionListener(new ListSelectionListener()
         {
@@ -147,13 +156,14 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
                     break;
                 case DATE:
                     videoList = videoList.stream()
-                                         .sorted(Comparator.comparing(File::lastModified).reversed())
+                                         .sorted(Comparator.comparingLong(videoListHandler::getLastModified).reversed())
                                          .collect(Collectors.toList());
                     break;
             }
         }
         File[] videoArray = videoList.toArray(new File[0]);
         videos.setListData(videoArray);
+        videoListHandler.prefetchMetadata(videoList);
     }
     
     public void changeDisplayType(DisplayType type)
@@ -190,9 +200,17 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
     @Override
     public void post(Event event)
     {
-        if(event.getType().equals(EventType.RECORDING_END))
+        if(event.getType().equals(EventType.RECORDING_END) || event.getType().equals(EventType.SETTINGS_CHANGE)
+                || event.getProperties().get(EventProperty.VIDEO_TYPE) == videoListHandler.getType())
         {
-            SwingUtilities.invokeLater(() -> updateList(sortOrder));
+            // a burst of files arriving or going only needs the list rebuilt once
+            if(refreshPending.compareAndSet(false, true))
+            {
+                SwingUtilities.invokeLater(() -> {
+                    refreshPending.set(false);
+                    updateList(sortOrder);
+                });
+            }
         }
     }
     
@@ -288,14 +306,16 @@ public class VideoListPanel extends JScrollPane implements EventConsumer
                         if(renderStatusMap.get(value) == 0 && loadAttempts.getAndIncrement(value) < 5)
                         {
                             renderStatusMap.put(value, 1);
-                            SwingUtilities.invokeLater(() -> {
-                                metadataHandler.getThumbnail(value, true);
-                                if(renderStatusMap.get(value) == 1)
-                                {
-                                    renderStatusMap.put(value, 0);
-                                }
-                                list.repaint();
-                            });
+                            // metadata loads in the background; the thumbnail is only read once it's there
+                            metadataHandler.getMetadataAsync(value).whenComplete(
+                                    (metadata, e) -> SwingUtilities.invokeLater(() -> {
+                                        metadataHandler.getThumbnail(value, true);
+                                        if(renderStatusMap.get(value) == 1)
+                                        {
+                                            renderStatusMap.put(value, 0);
+                                        }
+                                        list.repaint();
+                                    }));
                         }
                     }
     
@@ -8,6 +8,8 @@ package io.github.trdesilva.autorecorder.ui.gui;
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.ui.gui.inject.LocalAppDataNativeDiscoveryStrategy;
 import io.github.trdesilva.autorecorder.ui.gui.wrapper.DefaultPanel;
+import io.github.trdesilva.autorecorder.video.KeyframeIndex;
+import io.github.trdesilva.autorecorder.video.VideoMetadataHandler;
 import net.miginfocom.swing.MigLayout;
 import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
 import uk.co.caprica.vlcj.factory.discovery.NativeDiscovery;
@@ -45,6 +47,7 @@ import static io.github.trdesilva.autorecorder.TimestampUtil.parseTime;
 
 public class VideoPlaybackPanel extends DefaultPanel implements AutoCloseable
 {
+    private final VideoMetadataHandler metadataHandler;
     private final EmbeddedMediaPlayerComponent mediaPlayerComponent;
     private final SeekBar seekBar;
     
@@ -66,10 +69,15 @@ public class VideoPlaybackPanel extends DefaultPanel implements AutoCloseable
     private float playbackRate;
     private int frameRate;
     private Thread subsectionControlThread;
+    private volatile File videoFile;
+    // null until the video's keyframes are known, which just means scrubbing isn't snapped
+    private volatile KeyframeIndex keyframeIndex;
     
     @Inject
-    public VideoPlaybackPanel(WindowCloseHandler windowCloseHandler, LocalAppDataNativeDiscoveryStrategy discoveryStrategy)
+    public VideoPlaybackPanel(WindowCloseHandler windowCloseHandler, LocalAppDataNativeDiscoveryStrategy discoveryStrategy,
+                              VideoMetadataHandler metadataHandler)
     {
+        this.metadataHandler = metadataHandler;
         setLayout(new MigLayout("", "[grow]", "[grow][60:6.25%:100]"));
         setPreferredSize(new Dimension(MainWindow.PREFERRED_WIDTH, 10 * MainWindow.PREFERRED_WIDTH / 16));
         
@@ -229,6 +237,18 @@ public class VideoPlaybackPanel extends DefaultPanel implements AutoCloseable
     
     public void play(File videoFile)
     {
+        this.videoFile = videoFile;
+        keyframeIndex = metadataHandler.getKeyframeIndexIfReady(videoFile);
+        if(keyframeIndex == null)
+        {
+            metadataHandler.getKeyframeIndexAsync(videoFile).thenAccept(index -> {
+                if(videoFile.equals(this.videoFile))
+                {
+                    keyframeIndex = index;
+                }
+            });
+        }
+        
         mediaPlayerComponent.mediaPlayer().media().prepare(videoFile.getAbsolutePath());
         setIsPlaying(true);
         setPlaybackRate(1.0f);
@@ -405,7 +425,20 @@ public class VideoPlaybackPanel extends DefaultPanel implements AutoCloseable
                     {
                         JSlider source = (JSlider) e.getSource();
                         sliderChanging.set(source.getValueIsAdjusting());
-                        mediaPlayerComponent.mediaPlayer().controls().setPosition(source.getValue() / 1000.0f);
+                        // while dragging, landing on keyframes means vlc can show each one without decoding up to
+                        // it; letting go seeks to exactly where the slider ended up
+                        KeyframeIndex index = keyframeIndex;
+                        int keyframe = index != null && source.getValueIsAdjusting() && duration > 0
+                                       ? index.nearest(source.getValue() * duration) // value/1000 * duration ms, in us
+                                       : -1;
+                        if(keyframe >= 0)
+                        {
+                            mediaPlayerComponent.mediaPlayer().controls().setTime(index.getTimeMillis(keyframe));
+                        }
+                        else
+                        {
+                            mediaPlayerComponent.mediaPlayer().controls().setPosition(source.getValue() / 1000.0f);
+                        }
                     }
                 }
             });
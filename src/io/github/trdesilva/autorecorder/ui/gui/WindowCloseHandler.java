@@ -10,13 +10,14 @@ import com.google.inject.Singleton;
 
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 @Singleton
 public class WindowCloseHandler extends WindowAdapter
 {
-    private final Set<AutoCloseable> closeables = new HashSet<>();
+    // closed in the order they were added
+    private final Set<AutoCloseable> closeables = new LinkedHashSet<>();
     
     @Inject
     public WindowCloseHandler()
@@ -6,7 +6,6 @@
 package io.github.trdesilva.autorecorder.ui.gui.clip;
 
 import com.google.inject.Inject;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.ui.gui.Navigator;
@@ -104,7 +103,7 @@ public class ClipInfoPanel extends VideoInfoPanel
                         }
                         catch(URISyntaxException | IOException ex)
                         {
-                            eventQueue.postEvent(new Event(EventType.DEBUG, "Link navigation failed: " + uploadUrl));
+                            eventQueue.postEvent(EventType.DEBUG, () -> "Link navigation failed: " + uploadUrl);
                         }
                     }
                 };
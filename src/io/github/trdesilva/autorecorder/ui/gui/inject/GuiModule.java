@@ -11,6 +11,8 @@ import com.formdev.flatlaf.FlatLightLaf;
 import com.google.inject.AbstractModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.name.Names;
+import io.github.trdesilva.autorecorder.record.DiffingProcessWatcher;
+import io.github.trdesilva.autorecorder.record.ProcessWatcher;
 import io.github.trdesilva.autorecorder.ui.gui.MainWindow;
 import io.github.trdesilva.autorecorder.ui.gui.Navigator;
 import io.github.trdesilva.autorecorder.upload.Uploader;
@@ -67,6 +69,7 @@ public class GuiModule extends AbstractModule
         
         install(new FactoryModuleBuilder().build(VideoListPanelFactory.class));
         bind(Uploader.class).to(YoutubeUploader.class);
+        bind(ProcessWatcher.class).to(DiffingProcessWatcher.class);
         bind(Navigator.class).to(MainWindow.class);
         bindConstant().annotatedWith(Names.named("isDebugMode")).to(isDebugMode);
     }
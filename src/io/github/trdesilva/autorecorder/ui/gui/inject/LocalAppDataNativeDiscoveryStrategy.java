@@ -7,7 +7,6 @@ package io.github.trdesilva.autorecorder.ui.gui.inject;
 
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.Settings;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import uk.co.caprica.vlcj.factory.discovery.strategy.NativeDiscoveryStrategy;
@@ -53,7 +52,7 @@ public class LocalAppDataNativeDiscoveryStrategy implements NativeDiscoveryStrat
         
         if(!VLC_DIR.resolve("libvlc.dll").toFile().exists())
         {
-            events.postEvent(new Event(EventType.DEBUG, "copying libvlc.dll from resources"));
+            events.postEvent(EventType.DEBUG, "copying libvlc.dll from resources");
             try
             {
                 Files.copy(ClassLoader.getSystemClassLoader().getResourceAsStream("libvlc.dll"),
@@ -65,13 +64,13 @@ public class LocalAppDataNativeDiscoveryStrategy implements NativeDiscoveryStrat
             }
             catch(IOException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to copy libvlc.dll"));
+                events.postEvent(EventType.DEBUG, "failed to copy libvlc.dll");
                 return false;
             }
         }
         if(!VLC_DIR.resolve("libvlccore.dll").toFile().exists())
         {
-            events.postEvent(new Event(EventType.DEBUG, "copying libvlccore.dll from resources"));
+            events.postEvent(EventType.DEBUG, "copying libvlccore.dll from resources");
             try
             {
                 Files.copy(ClassLoader.getSystemClassLoader().getResourceAsStream("libvlccore.dll"),
@@ -83,7 +82,7 @@ public class LocalAppDataNativeDiscoveryStrategy implements NativeDiscoveryStrat
             }
             catch(IOException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to copy libvlccore.dll"));
+                events.postEvent(EventType.DEBUG, "failed to copy libvlccore.dll");
                 return false;
             }
         }
@@ -133,7 +132,7 @@ public class LocalAppDataNativeDiscoveryStrategy implements NativeDiscoveryStrat
             }
             catch(IOException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to copy vlc plugins dir"));
+                events.postEvent(EventType.DEBUG, "failed to copy vlc plugins dir");
                 return false;
             }
         }
@@ -82,13 +82,117 @@ public class SettingsPanel extends DefaultPanel
         autoDeletePanel.add(autoDeleteThresholdField, "cell 1 0, w 30");
         autoDeletePanel.add(autoDeleteSizeLabel, "cell 2 0, grow, left");
         
+        JCheckBox keepBookmarkedCheckbox = new JCheckBox();
+        keepBookmarkedCheckbox.setSelected(settings.isAutoDeleteKeepBookmarkedEnabled());
+        keepBookmarkedCheckbox.setText("Never delete recordings with bookmarks");
+        keepBookmarkedCheckbox.setEnabled(settings.isAutoDeleteEnabled());
+        autoDeletePanel.add(keepBookmarkedCheckbox, "cell 0 1, spanx");
+        
+        JCheckBox keepClippedCheckbox = new JCheckBox();
+        keepClippedCheckbox.setSelected(settings.isAutoDeleteKeepClippedEnabled());
+        keepClippedCheckbox.setText("Never delete recordings that have been clipped");
+        keepClippedCheckbox.setEnabled(settings.isAutoDeleteEnabled());
+        autoDeletePanel.add(keepClippedCheckbox, "cell 0 2, spanx");
+        
+        JLabel minimumAgeLabel = new JLabel("Keep every recording for at least");
+        minimumAgeLabel.setToolTipText("Recordings newer than this are never deleted automatically, even if that leaves recording storage over the limit. 0 turns this off.");
+        ValidatingTextField minimumAgeField =
+                new ValidatingTextField(Integer.toString(settings.getAutoDeleteMinimumAgeDays()), input -> {
+                    try
+                    {
+                        int number = Integer.parseInt(input);
+                        if(number >= 0)
+                        {
+                            return null;
+                        }
+                        return "Cannot be negative";
+                    }
+                    catch(NumberFormatException e)
+                    {
+                        return "Must be an integer";
+                    }
+                });
+        minimumAgeField.setEnabled(settings.isAutoDeleteEnabled());
+        JLabel minimumAgeDaysLabel = new JLabel("days");
+        autoDeletePanel.add(minimumAgeLabel, "cell 0 3, right");
+        autoDeletePanel.add(minimumAgeField, "cell 1 3, w 30");
+        autoDeletePanel.add(minimumAgeDaysLabel, "cell 2 3, grow, left");
+        
+        JCheckBox recompressionCheckbox = new JCheckBox();
+        recompressionCheckbox.setSelected(settings.isRecompressionEnabled());
+        recompressionCheckbox.setText("Recompress recordings older than");
+        recompressionCheckbox.setToolTipText(
+                "When enabled, old recordings are re-encoded with a slower, more space-efficient setting while nothing is being recorded. Quality is slightly lower, but recordings typically take a fraction of the space.");
+        ValidatingTextField recompressionAgeField =
+                new ValidatingTextField(Integer.toString(settings.getRecompressionAgeDays()), input -> {
+                    try
+                    {
+                        int number = Integer.parseInt(input);
+                        if(number >= 0)
+                        {
+                            return null;
+                        }
+                        return "Cannot be negative";
+                    }
+                    catch(NumberFormatException e)
+                    {
+                        return "Must be an integer";
+                    }
+                });
+        recompressionAgeField.setEnabled(settings.isRecompressionEnabled());
+        JLabel recompressionDaysLabel = new JLabel("days");
+        autoDeletePanel.add(recompressionCheckbox, "cell 0 4, left");
+        autoDeletePanel.add(recompressionAgeField, "cell 1 4, w 30");
+        autoDeletePanel.add(recompressionDaysLabel, "cell 2 4, grow, left");
+        
         BookmarkPanel bookmarkPanel = new BookmarkPanel(settings);
         
         JCheckBox overrideNameCheckbox = new JCheckBox();
         overrideNameCheckbox.setSelected(settings.isOverrideObsNameFormatEnabled());
         overrideNameCheckbox.setText("Override OBS recording name format");
         overrideNameCheckbox.setToolTipText("When enabled, the selected OBS profile will have FilenameFormatting changed before each recording starts to include the name of the game being recorded. This overwrites your OBS profile's existing filename format, so if you use OBS separately from Autorecorder, it will still use the format that Autorecorder sets.");
-        autoDeletePanel.add(overrideNameCheckbox, "cell 0 1, spanx"); // TODO this is a hack to make things line up, no need to keep otherwise
+        autoDeletePanel.add(overrideNameCheckbox, "cell 0 5, spanx"); // TODO this is a hack to make things line up, no need to keep otherwise
+        
+        JCheckBox writeBehindCheckbox = new JCheckBox();
+        writeBehindCheckbox.setSelected(settings.isMetadataWriteBehindEnabled());
+        writeBehindCheckbox.setText("Batch video info saves");
+        writeBehindCheckbox.setToolTipText("When enabled, changes to a video's bookmarks, game name or upload link are saved to disk a couple of seconds later, so a burst of changes is only written once. A crash in that window loses the latest changes.");
+        autoDeletePanel.add(writeBehindCheckbox, "cell 0 6, spanx");
+        
+        JLabel clipWorkersLabel = new JLabel("Clips to make at once");
+        clipWorkersLabel.setToolTipText("How many queued clips are made at the same time. 0 picks a number based on how many CPU cores there are. Takes effect the next time Autorecorder starts.");
+        ValidatingTextField clipWorkersField =
+                new ValidatingTextField(Integer.toString(settings.getClipWorkers()), input -> {
+                    try
+                    {
+                        int number = Integer.parseInt(input);
+                        if(number >= 0)
+                        {
+                            return null;
+                        }
+                        return "Cannot be negative";
+                    }
+                    catch(NumberFormatException e)
+                    {
+                        return "Must be an integer";
+                    }
+                });
+        JLabel clipWorkersAutoLabel = new JLabel("(0 for automatic)");
+        autoDeletePanel.add(clipWorkersLabel, "cell 0 7, right");
+        autoDeletePanel.add(clipWorkersField, "cell 1 7, w 30");
+        autoDeletePanel.add(clipWorkersAutoLabel, "cell 2 7, grow, left");
+        
+        JCheckBox smartCutCheckbox = new JCheckBox();
+        smartCutCheckbox.setSelected(settings.isSmartCutEnabled());
+        smartCutCheckbox.setText("Fast clipping (experimental)");
+        smartCutCheckbox.setToolTipText("When enabled, clips copy most of the recording instead of re-encoding it, and only re-encode a second or two at each end. Much faster, but some players may show glitches where the copied and re-encoded parts meet.");
+        autoDeletePanel.add(smartCutCheckbox, "cell 0 8, spanx");
+        
+        JCheckBox chunkedEncodingCheckbox = new JCheckBox();
+        chunkedEncodingCheckbox.setSelected(settings.isChunkedEncodingEnabled());
+        chunkedEncodingCheckbox.setText("Parallel encoding for long clips (experimental)");
+        chunkedEncodingCheckbox.setToolTipText("When enabled, long clips are encoded in several pieces at once and joined afterwards. Faster on machines with many cores.");
+        autoDeletePanel.add(chunkedEncodingCheckbox, "cell 0 9, spanx");
         
         JButton licenseButton = new JButton("View License/Terms of Use");
         JButton saveButton = new JButton("Save");
@@ -110,6 +214,13 @@ public class SettingsPanel extends DefaultPanel
         
         autoDeleteCheckbox.addChangeListener(e -> {
             autoDeleteThresholdField.setEnabled(autoDeleteCheckbox.isSelected());
+            keepBookmarkedCheckbox.setEnabled(autoDeleteCheckbox.isSelected());
+            keepClippedCheckbox.setEnabled(autoDeleteCheckbox.isSelected());
+            minimumAgeField.setEnabled(autoDeleteCheckbox.isSelected());
+        });
+        
+        recompressionCheckbox.addChangeListener(e -> {
+            recompressionAgeField.setEnabled(recompressionCheckbox.isSelected());
         });
         
         licenseButton.addActionListener(e -> {
@@ -125,10 +236,16 @@ public class SettingsPanel extends DefaultPanel
             tempSettings.additionalGames = additionalGamesPanel.getGames();
             tempSettings.excludedGames = excludedGamesPanel.getGames();
             tempSettings.autoDeleteEnabled = autoDeleteCheckbox.isSelected();
+            tempSettings.autoDeleteKeepBookmarked = keepBookmarkedCheckbox.isSelected();
+            tempSettings.autoDeleteKeepClipped = keepClippedCheckbox.isSelected();
+            tempSettings.recompressionEnabled = recompressionCheckbox.isSelected();
             tempSettings.bookmarksEnabled = bookmarkPanel.areBookmarksEnabled();
             tempSettings.bookmarkKey = bookmarkPanel.getBookmarkKey();
             tempSettings.consumeWindowsKeyEnabled = bookmarkPanel.isConsumeWindowsKeyEnabled();
             tempSettings.overrideObsNameFormat = overrideNameCheckbox.isSelected();
+            tempSettings.metadataWriteBehindEnabled = writeBehindCheckbox.isSelected();
+            tempSettings.smartCutEnabled = smartCutCheckbox.isSelected();
+            tempSettings.chunkedEncodingEnabled = chunkedEncodingCheckbox.isSelected();
             if(autoDeleteThresholdField.isValid())
             {
                 tempSettings.autoDeleteThresholdGB = Integer.parseInt(autoDeleteThresholdField.getText());
@@ -137,6 +254,30 @@ public class SettingsPanel extends DefaultPanel
             {
                 tempSettings.autoDeleteThresholdGB = -1;
             }
+            if(minimumAgeField.isValid())
+            {
+                tempSettings.autoDeleteMinimumAgeDays = Integer.parseInt(minimumAgeField.getText());
+            }
+            else
+            {
+                tempSettings.autoDeleteMinimumAgeDays = -1;
+            }
+            if(recompressionAgeField.isValid())
+            {
+                tempSettings.recompressionAgeDays = Integer.parseInt(recompressionAgeField.getText());
+            }
+            else
+            {
+                tempSettings.recompressionAgeDays = -1;
+            }
+            if(clipWorkersField.isValid())
+            {
+                tempSettings.clipWorkers = Integer.parseInt(clipWorkersField.getText());
+            }
+            else
+            {
+                tempSettings.clipWorkers = -1;
+            }
             
             if(validator.validate(tempSettings))
             {
@@ -148,10 +289,19 @@ public class SettingsPanel extends DefaultPanel
                 settings.setExcludedGames(excludedGamesPanel.getGames());
                 settings.setAutoDeleteEnabled(tempSettings.autoDeleteEnabled);
                 settings.setAutoDeleteThresholdGB(tempSettings.autoDeleteThresholdGB);
+                settings.setAutoDeleteKeepBookmarkedEnabled(tempSettings.autoDeleteKeepBookmarked);
+                settings.setAutoDeleteKeepClippedEnabled(tempSettings.autoDeleteKeepClipped);
+                settings.setAutoDeleteMinimumAgeDays(tempSettings.autoDeleteMinimumAgeDays);
+                settings.setRecompressionEnabled(tempSettings.recompressionEnabled);
+                settings.setRecompressionAgeDays(tempSettings.recompressionAgeDays);
+                settings.setClipWorkers(tempSettings.clipWorkers);
                 settings.setBookmarksEnabled(tempSettings.bookmarksEnabled);
                 settings.setBookmarkKey(tempSettings.bookmarkKey);
                 settings.setOverrideObsNameFormatEnabled(tempSettings.overrideObsNameFormat);
                 settings.setConsumeWindowsKeyEnabled(tempSettings.consumeWindowsKeyEnabled);
+                settings.setMetadataWriteBehindEnabled(tempSettings.metadataWriteBehindEnabled);
+                settings.setSmartCutEnabled(tempSettings.smartCutEnabled);
+                settings.setChunkedEncodingEnabled(tempSettings.chunkedEncodingEnabled);
                 
                 settings.save();
                 events.postEvent(new Event(EventType.SUCCESS, "Settings saved"));
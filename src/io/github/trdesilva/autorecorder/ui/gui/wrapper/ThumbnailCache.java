@@ -12,7 +12,6 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 
@@ -39,7 +38,7 @@ public class ThumbnailCache implements LoadingCache<String, Image>
             {
                 if(!key.isBlank())
                 {
-                    eventQueue.postEvent(new Event(EventType.DEBUG, String.format("Loading thumbnail from %s", key)));
+                    eventQueue.postEvent(EventType.DEBUG, () -> String.format("Loading thumbnail from %s", key));
                     File thumbnailFile = new File(key);
                     if(thumbnailFile.exists())
                     {
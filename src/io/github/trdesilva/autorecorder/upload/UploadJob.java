@@ -5,6 +5,9 @@
 
 package io.github.trdesilva.autorecorder.upload;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,6 +16,7 @@ public class UploadJob
     String clipName;
     String videoTitle;
     String description;
+    @JsonProperty
     Map<String, String> properties;
     
     public UploadJob(String clipName, String videoTitle, String description)
@@ -23,6 +27,19 @@ public class UploadJob
         properties = new HashMap<>();
     }
     
+    // for reading jobs back out of the queue's journal
+    @JsonCreator
+    UploadJob(@JsonProperty("clipName") String clipName, @JsonProperty("videoTitle") String videoTitle,
+              @JsonProperty("description") String description,
+              @JsonProperty("properties") Map<String, String> properties)
+    {
+        this(clipName, videoTitle, description);
+        if(properties != null)
+        {
+            this.properties.putAll(properties);
+        }
+    }
+    
     public String getClipName()
     {
         return clipName;
@@ -7,27 +7,36 @@ package io.github.trdesilva.autorecorder.upload;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.github.trdesilva.autorecorder.JobJournal;
+import io.github.trdesilva.autorecorder.Settings;
 import io.github.trdesilva.autorecorder.ui.gui.ReportableException;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 
+// uploads are journaled like clips, so any still waiting or in progress when the app closes are started again next time
 @Singleton
 public class UploadQueue implements AutoCloseable
 {
+    private static final long NOT_JOURNALED = -1;
+    
     private final Uploader uploader;
     private final EventQueue events;
     
-    private final ConcurrentLinkedQueue<UploadJob> jobs;
+    private final ConcurrentLinkedQueue<QueuedUpload> jobs;
     private final Semaphore semaphore;
+    private final JobJournal<UploadJob> journal;
     private Thread uploadingThread;
+    private volatile boolean stopping;
     
     @Inject
     public UploadQueue(Uploader uploader, EventQueue events)
@@ -37,11 +46,26 @@ public class UploadQueue implements AutoCloseable
         
         jobs = new ConcurrentLinkedQueue<>();
         semaphore = new Semaphore(0);
+        journal = new JobJournal<>(Settings.SETTINGS_DIR.resolve("uploadJobs.journal"), UploadJob.class, events);
     }
     
     public synchronized void enqueue(UploadJob clipJob)
     {
-        jobs.offer(clipJob);
+        long journalId = NOT_JOURNALED;
+        try
+        {
+            journalId = journal.enqueued(clipJob);
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Couldn't journal upload job, so it won't survive a restart: " + e.getMessage());
+        }
+        offer(clipJob, journalId);
+    }
+    
+    private void offer(UploadJob job, long journalId)
+    {
+        jobs.offer(new QueuedUpload(job, journalId));
         semaphore.release(1);
     }
     
@@ -49,6 +73,8 @@ public class UploadQueue implements AutoCloseable
     {
         if(uploader != null && (uploadingThread == null || !uploadingThread.isAlive()))
         {
+            stopping = false;
+            resumeJournaledJobs();
             uploadingThread = new Thread(() -> {
                 while(true)
                 {
@@ -60,7 +86,11 @@ public class UploadQueue implements AutoCloseable
                     {
                         return;
                     }
-                    UploadJob job = jobs.poll();
+                    QueuedUpload queued = jobs.poll();
+                    UploadJob job = queued.job;
+                    journal(queued, false);
+                    // only false when the app is closing, which leaves the upload to be started again next time
+                    boolean finished = true;
                     try
                     {
                         if(uploader.getValidator().validate(job))
@@ -68,6 +98,8 @@ public class UploadQueue implements AutoCloseable
                             events.postEvent(new Event(EventType.INFO, "Starting upload of " + job.getVideoTitle()));
                             events.postEvent(new Event(EventType.UPLOAD_START, "Uploading " + job.getVideoTitle(), Collections.singletonMap(EventProperty.UPLOAD_JOB, job)));
                             String url = uploader.upload(job);
+                            // straight away, so closing from here on can't upload it twice
+                            journal(queued, true);
                             events.postEvent(
                                     new Event(EventType.SUCCESS, job.getVideoTitle() + " uploaded",
                                               Collections.singletonMap(EventProperty.LINK, url)));
@@ -76,19 +108,28 @@ public class UploadQueue implements AutoCloseable
                     }
                     catch(ReportableException e)
                     {
+                        finished = !stopping;
                         events.postEvent(new Event(EventType.FAILURE,
                                                    String.format("Failed to upload '%s': %s",
                                                                            job.getClipName(), e.getMessage())));
-                        events.postEvent(new Event(EventType.DEBUG, Arrays.toString(e.getCause().getStackTrace())));
+                        events.postEvent(EventType.DEBUG, () -> Arrays.toString(e.getCause().getStackTrace()));
                         events.postEvent(new Event(EventType.UPLOAD_END, "", Collections.singletonMap(EventProperty.UPLOAD_JOB, job)));
                     }
                     catch(Exception e)
                     {
-                        events.postEvent(new Event(EventType.DEBUG, Arrays.toString(e.getStackTrace())));
+                        finished = !stopping;
+                        events.postEvent(EventType.DEBUG, () -> Arrays.toString(e.getStackTrace()));
                         events.postEvent(new Event(EventType.FAILURE, String.format("Failed to upload '%s'",
                                                                                     job.getClipName())));
                         events.postEvent(new Event(EventType.UPLOAD_END, "Finished uploading " + job.getVideoTitle(), Collections.singletonMap(EventProperty.UPLOAD_JOB, job)));
                     }
+                    finally
+                    {
+                        if(finished)
+                        {
+                            journal(queued, true);
+                        }
+                    }
                 }
             });
             uploadingThread.setName("Uploading thread");
@@ -98,6 +139,7 @@ public class UploadQueue implements AutoCloseable
     
     public void stopProcessing()
     {
+        stopping = true;
         if(uploadingThread != null && uploadingThread.isAlive())
         {
             uploadingThread.interrupt();
@@ -108,5 +150,66 @@ public class UploadQueue implements AutoCloseable
     public void close() throws Exception
     {
         stopProcessing();
+        journal.close();
+    }
+    
+    private void resumeJournaledJobs()
+    {
+        List<JobJournal.Entry<UploadJob>> unfinished;
+        try
+        {
+            unfinished = journal.takeRecovered();
+        }
+        catch(IOException e)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Couldn't read uploads left over from last time"));
+            events.postEvent(EventType.DEBUG, e::getMessage);
+            return;
+        }
+        
+        // an upload that was cut off can't be picked up where it stopped, so each one starts over
+        for(JobJournal.Entry<UploadJob> entry: unfinished)
+        {
+            offer(entry.getJob(), entry.getId());
+        }
+        if(!unfinished.isEmpty())
+        {
+            events.postEvent(new Event(EventType.INFO, String.format("Resuming %d unfinished uploads", unfinished.size())));
+        }
+    }
+    
+    private void journal(QueuedUpload queued, boolean finished)
+    {
+        if(queued.journalId == NOT_JOURNALED)
+        {
+            return;
+        }
+        try
+        {
+            if(finished)
+            {
+                journal.finished(queued.journalId);
+            }
+            else
+            {
+                journal.started(queued.journalId);
+            }
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "Couldn't journal upload job: " + e.getMessage());
+        }
+    }
+    
+    private static class QueuedUpload
+    {
+        private final UploadJob job;
+        private final long journalId;
+        
+        QueuedUpload(UploadJob job, long journalId)
+        {
+            this.job = job;
+            this.journalId = journalId;
+        }
     }
 }
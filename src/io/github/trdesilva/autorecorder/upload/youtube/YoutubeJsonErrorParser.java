@@ -10,7 +10,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.ui.gui.ReportableException;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 
@@ -37,7 +36,7 @@ public class YoutubeJsonErrorParser
     {
         try
         {
-            events.postEvent(new Event(EventType.DEBUG, e.getContent()));
+            events.postEvent(EventType.DEBUG, e::getContent);
             JsonNode errorContent = objectMapper.readTree(e.getContent()).get("errors").get(0);
             String reason = errorContent.get("reason").asText();
             if(e.getStatusCode() == 403)
@@ -20,7 +20,6 @@ import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.youtube.YouTube;
 import com.google.inject.Inject;
 import io.github.trdesilva.autorecorder.Settings;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.ui.gui.ReportableException;
@@ -95,7 +94,7 @@ public class YoutubeServiceFactory
             {
                 credential.refreshToken();
                 goodCredential = true;
-                events.postEvent(new Event(EventType.DEBUG, "successfully refreshed token"));
+                events.postEvent(EventType.DEBUG, "successfully refreshed token");
             }
             else
             {
@@ -109,14 +108,14 @@ public class YoutubeServiceFactory
         
         if(!goodCredential)
         {
-            events.postEvent(new Event(EventType.DEBUG, "bad/missing YouTube cred, starting OAuth flow"));
+            events.postEvent(EventType.DEBUG, "bad/missing YouTube cred, starting OAuth flow");
             LocalServerReceiver codeReceiver = new LocalServerReceiver();
             String redirectUri = codeReceiver.getRedirectUri();
             Desktop.getDesktop().browse(flow.newAuthorizationUrl().setRedirectUri(redirectUri).toURI());
             String code = codeReceiver.waitForCode();
             GoogleAuthorizationCodeTokenRequest tokenRequest = flow.newTokenRequest(code).setRedirectUri(redirectUri);
             credential = flow.createAndStoreCredential(tokenRequest.execute(), "user");
-            events.postEvent(new Event(EventType.DEBUG, "OAuth flow done"));
+            events.postEvent(EventType.DEBUG, "OAuth flow done");
         }
         
         return new YouTube.Builder(httpTransport, JSON_FACTORY, credential)
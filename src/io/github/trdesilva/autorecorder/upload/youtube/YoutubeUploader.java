@@ -14,7 +14,6 @@ import com.google.api.services.youtube.model.VideoSnippet;
 import com.google.api.services.youtube.model.VideoStatus;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.ui.gui.ReportableException;
@@ -71,10 +70,9 @@ public class YoutubeUploader extends Uploader
     {
         try
         {
-            events.postEvent(new Event(EventType.DEBUG,
-                                       String.format("uploading clip: %s\ttitle: %s\tdescription: %s\tprivacy: %s",
-                                                     clipName, videoTitle, description,
-                                                     privacyStatus.name())));
+            events.postEvent(EventType.DEBUG,
+                             () -> String.format("uploading clip: %s\ttitle: %s\tdescription: %s\tprivacy: %s",
+                                                 clipName, videoTitle, description, privacyStatus.name()));
             YouTube youtubeService = youtubeServiceFactory.getService();
             
             // Define the Video object, which will be uploaded as the request body.
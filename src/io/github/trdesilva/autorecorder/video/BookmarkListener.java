@@ -67,7 +67,7 @@ public class BookmarkListener implements EventConsumer, NativeKeyListener, AutoC
                 GlobalScreen.registerNativeHook();
                 GlobalScreen.addNativeKeyListener(this);
                 recordingStart.set(DateTime.now().getMillis());
-                events.postEvent(new Event(EventType.DEBUG, "started bookmark listening"));
+                events.postEvent(EventType.DEBUG, "started bookmark listening");
             }
             catch(NativeHookException e)
             {
@@ -80,7 +80,7 @@ public class BookmarkListener implements EventConsumer, NativeKeyListener, AutoC
             {
                 GlobalScreen.removeNativeKeyListener(this);
                 GlobalScreen.unregisterNativeHook();
-                events.postEvent(new Event(EventType.DEBUG, "stopped bookmark listening"));
+                events.postEvent(EventType.DEBUG, "stopped bookmark listening");
             }
             catch(NativeHookException e)
             {
@@ -112,11 +112,11 @@ public class BookmarkListener implements EventConsumer, NativeKeyListener, AutoC
                 Field f = NativeInputEvent.class.getDeclaredField("reserved");
                 f.setAccessible(true);
                 f.setShort(nativeEvent, (short) 0x01);
-                events.postEvent(new Event(EventType.DEBUG, "Consumed Windows key"));
+                events.postEvent(EventType.DEBUG, "Consumed Windows key");
             }
             catch(NoSuchFieldException|IllegalAccessException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "failed to consume Windows key: " + e.getMessage()));
+                events.postEvent(EventType.DEBUG, () -> "failed to consume Windows key: " + e.getMessage());
             }
         }
     }
@@ -125,6 +125,6 @@ public class BookmarkListener implements EventConsumer, NativeKeyListener, AutoC
     public void close() throws Exception
     {
         GlobalScreen.unregisterNativeHook();
-        events.postEvent(new Event(EventType.DEBUG, "unregistered bookmark listener"));
+        events.postEvent(EventType.DEBUG, "unregistered bookmark listener");
     }
 }
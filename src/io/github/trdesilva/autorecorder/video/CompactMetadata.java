@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import com.google.common.collect.Interner;
+import org.joda.time.DateTime;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// VideoMetadata packed into primitives so every video in the library can stay in memory at once. game names are
+// interned, and the thumbnail path is only kept when it isn't the one derived from the video, which it almost always is
+final class CompactMetadata
+{
+    // object header, two longs, two ints, a boolean and four references, plus the empty bookmark array every entry has
+    static final int FIXED_BYTES = 56 + 16;
+    static final int BYTES_PER_BOOKMARK = 8;
+    
+    private static final Pattern RESOLUTION_PATTERN = Pattern.compile("(\\d{1,5})x(\\d{1,5})");
+    private static final int NO_RESOLUTION = -1;
+    private static final long[] NO_BOOKMARKS = new long[0];
+    
+    private final long creationMillis;
+    private final long duration;
+    // width in the high half, height in the low half
+    private final int resolution;
+    private final long[] bookmarks;
+    private final String gameName;
+    // null means the derived path
+    private final String thumbnailPath;
+    private final String uploadLink;
+    private final int clipCount;
+    private final boolean recompressed;
+    
+    private CompactMetadata(long creationMillis, long duration, int resolution, long[] bookmarks, String gameName,
+                            String thumbnailPath, String uploadLink, int clipCount, boolean recompressed)
+    {
+        this.creationMillis = creationMillis;
+        this.duration = duration;
+        this.resolution = resolution;
+        this.bookmarks = bookmarks;
+        this.gameName = gameName;
+        this.thumbnailPath = thumbnailPath;
+        this.uploadLink = uploadLink;
+        this.clipCount = clipCount;
+        this.recompressed = recompressed;
+    }
+    
+    static CompactMetadata pack(VideoMetadata metadata, String derivedThumbnailPath, Interner<String> names)
+    {
+        int resolution = NO_RESOLUTION;
+        Matcher matcher = RESOLUTION_PATTERN.matcher(metadata.getResolution());
+        if(matcher.matches())
+        {
+            int width = Integer.parseInt(matcher.group(1));
+            int height = Integer.parseInt(matcher.group(2));
+            if(width <= 0xFFFF && height <= 0xFFFF)
+            {
+                resolution = width << 16 | height;
+            }
+        }
+        
+        List<Long> bookmarkList = metadata.getBookmarks();
+        long[] bookmarks = bookmarkList.isEmpty() ? NO_BOOKMARKS : new long[bookmarkList.size()];
+        int i = 0;
+        for(Long bookmark: bookmarkList)
+        {
+            bookmarks[i++] = bookmark;
+        }
+        
+        String thumbnailPath = metadata.getThumbnailPath().equals(derivedThumbnailPath)
+                               ? null
+                               : metadata.getThumbnailPath();
+        String uploadLink = metadata.getUploadLink().isEmpty() ? "" : metadata.getUploadLink();
+        
+        return new CompactMetadata(metadata.getCreationDate().getMillis(), metadata.getDuration(), resolution,
+                                   bookmarks, names.intern(metadata.getGameName()), thumbnailPath, uploadLink,
+                                   metadata.getClipCount(), metadata.isRecompressed());
+    }
+    
+    // a new copy every time, so callers can change it before saving without touching the cache
+    VideoMetadata unpack(String derivedThumbnailPath)
+    {
+        VideoMetadata metadata = new VideoMetadata();
+        metadata.setCreationDate(new DateTime(creationMillis));
+        metadata.setDuration(duration);
+        if(resolution != NO_RESOLUTION)
+        {
+            metadata.setResolution(String.format("%dx%d", resolution >>> 16, resolution & 0xFFFF));
+        }
+        
+        List<Long> bookmarkList = new LinkedList<>();
+        for(long bookmark: bookmarks)
+        {
+            bookmarkList.add(bookmark);
+        }
+        metadata.setBookmarks(bookmarkList);
+        
+        metadata.setGameName(gameName);
+        metadata.setThumbnailPath(thumbnailPath == null ? derivedThumbnailPath : thumbnailPath);
+        metadata.setUploadLink(uploadLink);
+        metadata.setClipCount(clipCount);
+        metadata.setRecompressed(recompressed);
+        return metadata;
+    }
+    
+    int estimateBytes()
+    {
+        return FIXED_BYTES + bookmarks.length * BYTES_PER_BOOKMARK;
+    }
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+// reads resolution and duration straight out of MP4 and MKV headers, which covers what OBS writes without starting
+// ffprobe. anything it can't read completely is left for ffprobe
+public final class ContainerHeaderParser
+{
+    public static class ContainerHeader
+    {
+        private final int width;
+        private final int height;
+        private final long durationMillis;
+        
+        public ContainerHeader(int width, int height, long durationMillis)
+        {
+            this.width = width;
+            this.height = height;
+            this.durationMillis = durationMillis;
+        }
+        
+        public int getWidth()
+        {
+            return width;
+        }
+        
+        public int getHeight()
+        {
+            return height;
+        }
+        
+        // -1 if unknown
+        public long getDurationMillis()
+        {
+            return durationMillis;
+        }
+    }
+    
+    // no real moov or MKV header section is anywhere near this big, so anything larger is a corrupt size field
+    private static final int MAX_HEADER_BYTES = 16 * 1024 * 1024;
+    private static final int MKV_HEADER_BYTES = 256 * 1024;
+    
+    private static final int MP4_FTYP = fourCc("ftyp");
+    private static final int MP4_MOOV = fourCc("moov");
+    private static final int MP4_MVHD = fourCc("mvhd");
+    private static final int MP4_TRAK = fourCc("trak");
+    private static final int MP4_TKHD = fourCc("tkhd");
+    private static final int MP4_MDIA = fourCc("mdia");
+    private static final int MP4_HDLR = fourCc("hdlr");
+    private static final int MP4_VIDE = fourCc("vide");
+    
+    private static final int EBML_MAGIC = 0x1A45DFA3;
+    private static final int MKV_SEGMENT = 0x18538067;
+    private static final int MKV_INFO = 0x1549A966;
+    private static final int MKV_TIMECODE_SCALE = 0x2AD7B1;
+    private static final int MKV_DURATION = 0x4489;
+    private static final int MKV_TRACKS = 0x1654AE6B;
+    private static final int MKV_TRACK_ENTRY = 0xAE;
+    private static final int MKV_TRACK_TYPE = 0x83;
+    private static final int MKV_VIDEO = 0xE0;
+    private static final int MKV_PIXEL_WIDTH = 0xB0;
+    private static final int MKV_PIXEL_HEIGHT = 0xBA;
+    private static final int MKV_CLUSTER = 0x1F43B675;
+    private static final long MKV_UNKNOWN_SIZE = -1;
+    
+    private ContainerHeaderParser()
+    {
+    }
+    
+    public static Optional<ContainerHeader> parse(File video)
+    {
+        try(FileChannel channel = FileChannel.open(video.toPath(), StandardOpenOption.READ))
+        {
+            ByteBuffer magic = read(channel, 0, 8);
+            if(magic == null)
+            {
+                return Optional.empty();
+            }
+            
+            ContainerHeader header = null;
+            if(magic.getInt(0) == EBML_MAGIC)
+            {
+                header = parseMkv(channel);
+            }
+            else if(magic.getInt(4) == MP4_FTYP)
+            {
+                header = parseMp4(channel);
+            }
+            
+            // in-progress recordings don't have a duration yet, and ffprobe is the authority on those
+            if(header != null && header.width > 0 && header.height > 0 && header.durationMillis > 0)
+            {
+                return Optional.of(header);
+            }
+        }
+        catch(IOException | RuntimeException e)
+        {
+            // malformed or truncated; ffprobe will deal with it
+        }
+        
+        return Optional.empty();
+    }
+    
+    private static ContainerHeader parseMp4(FileChannel channel) throws IOException
+    {
+        // walk the top-level boxes until moov, which OBS writes after the media data
+        long position = 0;
+        long fileSize = channel.size();
+        while(position + 8 <= fileSize)
+        {
+            // room for a 64-bit size, unless the file ends first
+            ByteBuffer boxHeader = read(channel, position, (int) Math.min(16, fileSize - position));
+            if(boxHeader == null)
+            {
+                return null;
+            }
+            long size = Integer.toUnsignedLong(boxHeader.getInt(0));
+            int type = boxHeader.getInt(4);
+            int headerSize = 8;
+            if(size == 1)
+            {
+                if(boxHeader.limit() < 16)
+                {
+                    return null;
+                }
+                size = boxHeader.getLong(8);
+                headerSize = 16;
+            }
+            else if(size == 0)
+            {
+                size = fileSize - position;
+            }
+            if(size < headerSize)
+            {
+                return null;
+            }
+            
+            if(type == MP4_MOOV)
+            {
+                if(size > MAX_HEADER_BYTES)
+                {
+                    return null;
+                }
+                ByteBuffer moov = read(channel, position + headerSize, (int) size - headerSize);
+                return moov == null ? null : parseMoov(moov);
+            }
+            position += size;
+        }
+        
+        return null;
+    }
+    
+    private static ContainerHeader parseMoov(ByteBuffer moov)
+    {
+        long durationMillis = -1;
+        int width = 0;
+        int height = 0;
+        
+        int position = 0;
+        while(position + 8 <= moov.limit())
+        {
+            int size = moov.getInt(position);
+            int type = moov.getInt(position + 4);
+            if(size < 8 || position + size > moov.limit())
+            {
+                return null;
+            }
+            
+            if(type == MP4_MVHD)
+            {
+                int version = moov.get(position + 8);
+                // version 1 widens the creation, modification and duration fields to 64 bits
+                long timescale = Integer.toUnsignedLong(moov.getInt(position + (version == 1 ? 28 : 20)));
+                long duration = version == 1 ? moov.getLong(position + 32)
+                                             : Integer.toUnsignedLong(moov.getInt(position + 24));
+                if(timescale > 0)
+                {
+                    durationMillis = duration * 1000 / timescale;
+                }
+            }
+            else if(type == MP4_TRAK && width == 0)
+            {
+                ByteBuffer trak = moov.slice();
+                trak.position(position + 8).limit(position + size);
+                trak = trak.slice();
+                if(isVideoTrak(trak))
+                {
+                    int tkhd = findBox(trak, 0, trak.limit(), MP4_TKHD);
+                    if(tkhd >= 0)
+                    {
+                        int version = trak.get(tkhd + 8);
+                        // width and height are 16.16 fixed point at the very end of the box
+                        int dimensions = tkhd + (version == 1 ? 96 : 84);
+                        if(dimensions + 8 <= trak.limit())
+                        {
+                            width = trak.getInt(dimensions) >>> 16;
+                            height = trak.getInt(dimensions + 4) >>> 16;
+                        }
+                    }
+                }
+            }
+            position += size;
+        }
+        
+        return new ContainerHeader(width, height, durationMillis);
+    }
+    
+    private static boolean isVideoTrak(ByteBuffer trak)
+    {
+        int mdia = findBox(trak, 0, trak.limit(), MP4_MDIA);
+        if(mdia < 0)
+        {
+            return false;
+        }
+        int hdlr = findBox(trak, mdia + 8, mdia + trak.getInt(mdia), MP4_HDLR);
+        // full box header, then pre_defined, then the handler type
+        return hdlr >= 0 && hdlr + 20 <= trak.limit() && trak.getInt(hdlr + 16) == MP4_VIDE;
+    }
+    
+    // offset of the first box of the given type among the siblings in [start, end), or -1
+    private static int findBox(ByteBuffer buffer, int start, int end, int type)
+    {
+        int position = start;
+        while(position + 8 <= end)
+        {
+            int size = buffer.getInt(position);
+            if(size < 8 || position + size > end)
+            {
+                return -1;
+            }
+            if(buffer.getInt(position + 4) == type)
+            {
+                return position;
+            }
+            position += size;
+        }
+        return -1;
+    }
+    
+    private static ContainerHeader parseMkv(FileChannel channel) throws IOException
+    {
+        // Info and Tracks come before the first cluster, so only the start of the file matters
+        int length = (int) Math.min(channel.size(), MKV_HEADER_BYTES);
+        ByteBuffer buffer = read(channel, 0, length);
+        if(buffer == null)
+        {
+            return null;
+        }
+        
+        EbmlReader reader = new EbmlReader(buffer);
+        // skip the EBML header
+        reader.readId();
+        long ebmlSize = reader.readSize();
+        if(ebmlSize == MKV_UNKNOWN_SIZE)
+        {
+            return null;
+        }
+        reader.skip(ebmlSize);
+        
+        if(reader.readId() != MKV_SEGMENT)
+        {
+            return null;
+        }
+        reader.readSize();
+        
+        long timecodeScale = 1000000;
+        double duration = -1;
+        int width = 0;
+        int height = 0;
+        while(reader.hasRemaining())
+        {
+            int id = reader.readId();
+            long size = reader.readSize();
+            if(id == MKV_CLUSTER || size == MKV_UNKNOWN_SIZE)
+            {
+                break;
+            }
+            long end = reader.position() + size;
+            
+            if(id == MKV_INFO)
+            {
+                while(reader.position() < end)
+                {
+                    int childId = reader.readId();
+                    long childSize = reader.readSize();
+                    if(childId == MKV_TIMECODE_SCALE)
+                    {
+                        timecodeScale = reader.readUnsigned(childSize);
+                    }
+                    else if(childId == MKV_DURATION)
+                    {
+                        duration = reader.readFloat(childSize);
+                    }
+                    else
+                    {
+                        reader.skip(childSize);
+                    }
+                }
+            }
+            else if(id == MKV_TRACKS)
+            {
+                while(reader.position() < end && width == 0)
+                {
+                    int childId = reader.readId();
+                    long childSize = reader.readSize();
+                    if(childId == MKV_TRACK_ENTRY)
+                    {
+                        int[] dimensions = readVideoTrack(reader, reader.position() + childSize);
+                        width = dimensions[0];
+                        height = dimensions[1];
+                    }
+                    else
+                    {
+                        reader.skip(childSize);
+                    }
+                }
+            }
+            
+            if(duration >= 0 && width > 0)
+            {
+                break;
+            }
+            reader.seek(end);
+        }
+        
+        // duration is in units of the timecode scale, which is in nanoseconds
+        long durationMillis = duration > 0 ? (long) (duration * timecodeScale / 1000000) : -1;
+        return new ContainerHeader(width, height, durationMillis);
+    }
+    
+    // width and height of the track if it's a video track, or zeroes
+    private static int[] readVideoTrack(EbmlReader reader, long end)
+    {
+        long trackType = 0;
+        int width = 0;
+        int height = 0;
+        while(reader.position() < end)
+        {
+            int id = reader.readId();
+            long size = reader.readSize();
+            if(id == MKV_TRACK_TYPE)
+            {
+                trackType = reader.readUnsigned(size);
+            }
+            else if(id == MKV_VIDEO)
+            {
+                long videoEnd = reader.position() + size;
+                while(reader.position() < videoEnd)
+                {
+                    int childId = reader.readId();
+                    long childSize = reader.readSize();
+                    if(childId == MKV_PIXEL_WIDTH)
+                    {
+                        width = (int) reader.readUnsigned(childSize);
+                    }
+                    else if(childId == MKV_PIXEL_HEIGHT)
+                    {
+                        height = (int) reader.readUnsigned(childSize);
+                    }
+                    else
+                    {
+                        reader.skip(childSize);
+                    }
+                }
+            }
+            else
+            {
+                reader.skip(size);
+            }
+        }
+        reader.seek(end);
+        
+        return trackType == 1 ? new int[]{width, height} : new int[]{0, 0};
+    }
+    
+    // null if the file ends before length bytes
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining())
+        {
+            if(channel.read(buffer, position + buffer.position()) < 0)
+            {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+    
+    private static int fourCc(String type)
+    {
+        return (type.charAt(0) << 24) | (type.charAt(1) << 16) | (type.charAt(2) << 8) | type.charAt(3);
+    }
+    
+    private static class EbmlReader
+    {
+        private final ByteBuffer buffer;
+        
+        private EbmlReader(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+        
+        private boolean hasRemaining()
+        {
+            return buffer.hasRemaining();
+        }
+        
+        private long position()
+        {
+            return buffer.position();
+        }
+        
+        private void seek(long position)
+        {
+            buffer.position((int) Math.min(position, buffer.limit()));
+        }
+        
+        private void skip(long size)
+        {
+            seek(buffer.position() + size);
+        }
+        
+        // IDs keep their length marker bits, which is how the spec writes them
+        private int readId()
+        {
+            int first = buffer.get() & 0xFF;
+            int length = Integer.numberOfLeadingZeros(first) - 23;
+            if(length < 1 || length > 4)
+            {
+                throw new IllegalStateException("Bad EBML ID");
+            }
+            int id = first;
+            for(int i = 1; i < length; i++)
+            {
+                id = (id << 8) | (buffer.get() & 0xFF);
+            }
+            return id;
+        }
+        
+        // sizes drop the marker bit; all ones means the size is unknown, which live-written files use for Segment
+        private long readSize()
+        {
+            int first = buffer.get() & 0xFF;
+            int length = Integer.numberOfLeadingZeros(first) - 23;
+            if(length < 1 || length > 8)
+            {
+                throw new IllegalStateException("Bad EBML size");
+            }
+            long size = first & (0xFF >>> length);
+            boolean allOnes = size == (0xFF >>> length);
+            for(int i = 1; i < length; i++)
+            {
+                int next = buffer.get() & 0xFF;
+                allOnes &= next == 0xFF;
+                size = (size << 8) | next;
+            }
+            return allOnes ? MKV_UNKNOWN_SIZE : size;
+        }
+        
+        private long readUnsigned(long size)
+        {
+            long value = 0;
+            for(int i = 0; i < size; i++)
+            {
+                value = (value << 8) | (buffer.get() & 0xFF);
+            }
+            return value;
+        }
+        
+        private double readFloat(long size)
+        {
+            if(size == 4)
+            {
+                return buffer.getFloat();
+            }
+            if(size == 8)
+            {
+                return buffer.getDouble();
+            }
+            skip(size);
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.github.trdesilva.autorecorder.Settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// runs ffprobe on up to one video per core at a time, sharing the result between everyone who asks about the same file
+@Singleton
+public class FfprobePool implements AutoCloseable
+{
+    private static final long PROBE_TIMEOUT_MILLIS = 10000;
+    
+    private final Settings settings;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final Map<File, Probe> inFlight;
+    
+    @Inject
+    public FfprobePool(Settings settings)
+    {
+        this.settings = settings;
+        objectMapper = new ObjectMapper();
+        inFlight = new ConcurrentHashMap<>();
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "ffprobe thread " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // cancelling the returned future kills the probe if it's running, even if someone else is also waiting on it
+    public CompletableFuture<JsonNode> probe(File video)
+    {
+        return inFlight.computeIfAbsent(video, v -> {
+            Probe probe = new Probe(v);
+            probe.result.whenComplete((json, e) -> inFlight.remove(v, probe));
+            executor.execute(probe);
+            return probe;
+        }).result;
+    }
+    
+    public void cancel(File video)
+    {
+        Probe probe = inFlight.get(video);
+        if(probe != null)
+        {
+            probe.result.cancel(true);
+        }
+    }
+    
+    @Override
+    public void close()
+    {
+        inFlight.values().forEach(probe -> probe.result.cancel(true));
+        executor.shutdownNow();
+    }
+    
+    private class Probe implements Runnable
+    {
+        private final File video;
+        private final CompletableFuture<JsonNode> result;
+        private volatile Process process;
+        
+        private Probe(File video)
+        {
+            this.video = video;
+            result = new CompletableFuture<>();
+            result.whenComplete((json, e) -> {
+                Process running = process;
+                if(result.isCancelled() && running != null)
+                {
+                    running.destroyForcibly();
+                }
+            });
+        }
+        
+        @Override
+        public void run()
+        {
+            // it may have been cancelled while it was waiting for a thread
+            if(result.isDone())
+            {
+                return;
+            }
+            
+            try
+            {
+                String[] ffprobeArgs = {settings.getFfprobePath(), "-v", "quiet", "-print_format", "json", "-show_format", "-show_streams", "-select_streams", "v:0", video.getAbsolutePath()};
+                process = Runtime.getRuntime()
+                                 .exec(ffprobeArgs, null,
+                                       new File(Paths.get(settings.getFfmpegPath()).getParent().toString()));
+                if(result.isDone())
+                {
+                    process.destroyForcibly();
+                    return;
+                }
+                
+                // the output for a single stream is a few KB, well under what fits in the pipe while we wait
+                if(!process.waitFor(PROBE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                {
+                    process.destroyForcibly();
+                    throw new IOException(String.format("ffprobe timed out after %dms on %s", PROBE_TIMEOUT_MILLIS,
+                                                        video.getName()));
+                }
+                JsonNode json = objectMapper.readTree(process.getInputStream());
+                // no output at all if ffprobe couldn't open the file
+                result.complete(json != null ? json : objectMapper.missingNode());
+            }
+            catch(IOException | RuntimeException e)
+            {
+                result.completeExceptionally(e);
+            }
+            catch(InterruptedException e)
+            {
+                process.destroyForcibly();
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// where a video's keyframes are, by presentation time and byte offset. on disk the two columns are delta encoded as
+// zigzag varints, which gets a typical keyframe down to 4 or 5 bytes; in memory they're plain arrays for searching
+public final class KeyframeIndex
+{
+    private static final int MAGIC = 0x4B464931; // KFI1
+    // magic, video size and count
+    private static final int HEADER_BYTES = 16;
+    // ffprobe doesn't always know a packet's position
+    public static final long UNKNOWN_OFFSET = -1;
+    
+    // the size of the video when it was indexed; anything else means it's been rewritten since
+    private final long videoSize;
+    private final long[] timesMicros;
+    private final long[] offsets;
+    
+    KeyframeIndex(long videoSize, long[] timesMicros, long[] offsets)
+    {
+        this.videoSize = videoSize;
+        this.timesMicros = timesMicros;
+        this.offsets = offsets;
+    }
+    
+    public boolean isCurrentFor(File video)
+    {
+        return video.length() == videoSize;
+    }
+    
+    public int size()
+    {
+        return timesMicros.length;
+    }
+    
+    public long getTimeMicros(int keyframe)
+    {
+        return timesMicros[keyframe];
+    }
+    
+    public long getTimeMillis(int keyframe)
+    {
+        return timesMicros[keyframe] / 1000;
+    }
+    
+    public long getOffset(int keyframe)
+    {
+        return offsets[keyframe];
+    }
+    
+    // the last keyframe at or before the time, or -1 if there isn't one
+    public int floor(long timeMicros)
+    {
+        int found = Arrays.binarySearch(timesMicros, timeMicros);
+        return found >= 0 ? found : -found - 2;
+    }
+    
+    // the first keyframe at or after the time, or -1 if there isn't one
+    public int ceiling(long timeMicros)
+    {
+        int found = Arrays.binarySearch(timesMicros, timeMicros);
+        int ceiling = found >= 0 ? found : -found - 1;
+        return ceiling < timesMicros.length ? ceiling : -1;
+    }
+    
+    // whichever keyframe is closest, or -1 if there are none
+    public int nearest(long timeMicros)
+    {
+        int floor = floor(timeMicros);
+        int ceiling = ceiling(timeMicros);
+        if(floor < 0 || ceiling < 0)
+        {
+            return Math.max(floor, ceiling);
+        }
+        return timeMicros - timesMicros[floor] <= timesMicros[ceiling] - timeMicros ? floor : ceiling;
+    }
+    
+    static KeyframeIndex read(Path path) throws IOException
+    {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))))
+        {
+            if(in.readInt() != MAGIC)
+            {
+                throw new IOException("not a keyframe index: " + path);
+            }
+            long videoSize = in.readLong();
+            int count = in.readInt();
+            // every keyframe takes at least a byte in each column, so a damaged count is caught before it's used to
+            // size the arrays
+            if(count < 0 || 2L * count > Files.size(path) - HEADER_BYTES)
+            {
+                throw new IOException("corrupt keyframe index: " + path);
+            }
+            return new KeyframeIndex(videoSize, readDeltas(in, count), readDeltas(in, count));
+        }
+    }
+    
+    // written to a temp file and moved into place, so a reader never sees half of one
+    void write(Path path) throws IOException
+    {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeLong(videoSize);
+            out.writeInt(timesMicros.length);
+            writeDeltas(out, timesMicros);
+            writeDeltas(out, offsets);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static void writeDeltas(OutputStream out, long[] values) throws IOException
+    {
+        long previous = 0;
+        for(long value: values)
+        {
+            long delta = value - previous;
+            previous = value;
+            // zigzag, so small negative deltas (unknown offsets, reordered timestamps) stay small too
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while((zigzag & ~0x7FL) != 0)
+            {
+                out.write((int) (zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+    }
+    
+    private static long[] readDeltas(InputStream in, int count) throws IOException
+    {
+        long[] values = new long[count];
+        long previous = 0;
+        for(int i = 0; i < count; i++)
+        {
+            long zigzag = 0;
+            for(int shift = 0; ; shift += 7)
+            {
+                int b = in.read();
+                if(b < 0)
+                {
+                    throw new EOFException("truncated keyframe index");
+                }
+                if(shift > 63)
+                {
+                    throw new IOException("corrupt keyframe index");
+                }
+                zigzag |= (long) (b & 0x7F) << shift;
+                if((b & 0x80) == 0)
+                {
+                    break;
+                }
+            }
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+}
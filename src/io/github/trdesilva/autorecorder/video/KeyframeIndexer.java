@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// builds keyframe indexes with one ffprobe packet scan per video, one video at a time in the background, and keeps
+// them on disk so each video is only ever scanned once. recently used ones stay in memory
+class KeyframeIndexer
+{
+    private static final int MAX_RESIDENT = 64;
+    
+    private final FfmpegHelper ffmpegHelper;
+    private final EventQueue events;
+    private final Function<File, Path> indexPaths;
+    private final ExecutorService executor;
+    private final Map<File, CompletableFuture<KeyframeIndex>> inFlight;
+    private final Map<File, KeyframeIndex> resident;
+    
+    // indexPaths gives where each video's index is kept
+    KeyframeIndexer(FfmpegHelper ffmpegHelper, EventQueue events, Function<File, Path> indexPaths)
+    {
+        this.ffmpegHelper = ffmpegHelper;
+        this.events = events;
+        this.indexPaths = indexPaths;
+        inFlight = new ConcurrentHashMap<>();
+        resident = new ConcurrentHashMap<>();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Keyframe index thread");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    // null if the video hasn't been indexed since it last changed; doesn't start indexing it
+    KeyframeIndex getIfReady(File video)
+    {
+        KeyframeIndex index = resident.get(video);
+        if(index == null)
+        {
+            index = load(video);
+        }
+        return index != null && index.isCurrentFor(video) ? index : null;
+    }
+    
+    CompletableFuture<KeyframeIndex> get(File video)
+    {
+        KeyframeIndex ready = getIfReady(video);
+        if(ready != null)
+        {
+            return CompletableFuture.completedFuture(ready);
+        }
+        
+        return inFlight.computeIfAbsent(video, v -> {
+            CompletableFuture<KeyframeIndex> result = new CompletableFuture<>();
+            result.whenComplete((index, e) -> inFlight.remove(v, result));
+            executor.execute(() -> {
+                try
+                {
+                    result.complete(build(v));
+                }
+                catch(IOException | RuntimeException e)
+                {
+                    events.postEvent(EventType.DEBUG, () -> String.format("Couldn't index keyframes of %s: %s",
+                                                                          v.getName(), e.getMessage()));
+                    result.completeExceptionally(e);
+                }
+                catch(InterruptedException e)
+                {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        });
+    }
+    
+    void delete(File video)
+    {
+        resident.remove(video);
+        try
+        {
+            Files.deleteIfExists(indexPaths.apply(video));
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG,
+                             () -> String.format("failed to delete keyframe index for file %s", video.getName()));
+        }
+    }
+    
+    private KeyframeIndex load(File video)
+    {
+        try
+        {
+            KeyframeIndex index = KeyframeIndex.read(indexPaths.apply(video));
+            remember(video, index);
+            return index;
+        }
+        catch(NoSuchFileException e)
+        {
+            return null;
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> String.format("Couldn't read keyframe index of %s: %s",
+                                                                  video.getName(), e.getMessage()));
+            // so it's indexed again rather than failing the same way on every lookup
+            delete(video);
+            return null;
+        }
+    }
+    
+    private KeyframeIndex build(File video) throws IOException, InterruptedException
+    {
+        // it may have been finished by someone else's request while this one waited
+        KeyframeIndex ready = getIfReady(video);
+        if(ready != null)
+        {
+            return ready;
+        }
+        
+        long videoSize = video.length();
+        long startNanos = System.nanoTime();
+        KeyframeCollector collector = new KeyframeCollector();
+        ffmpegHelper.runFfprobeLines(new LinkedList<>(Arrays.asList(
+                "-select_streams", "v:0", "-show_entries", "packet=pts_time,pos,flags", "-print_format",
+                "compact=print_section=0", video.getAbsolutePath())), collector::accept);
+        KeyframeIndex index = collector.toIndex(videoSize);
+        
+        index.write(indexPaths.apply(video));
+        remember(video, index);
+        events.postEvent(EventType.DEBUG, () -> String.format("Indexed %d keyframes of %s in %dms", index.size(),
+                                                              video.getName(),
+                                                              (System.nanoTime() - startNanos) / 1000000));
+        return index;
+    }
+    
+    private void remember(File video, KeyframeIndex index)
+    {
+        // they're small, so forgetting everything now and then is simpler than tracking use
+        if(resident.size() >= MAX_RESIDENT)
+        {
+            resident.clear();
+        }
+        resident.put(video, index);
+    }
+    
+    // turns lines like "pts_time=12.345000|pos=123456|flags=K__" into the index's columns
+    private static class KeyframeCollector
+    {
+        private long[] times = new long[256];
+        private long[] offsets = new long[256];
+        private int count;
+        
+        void accept(String line)
+        {
+            long time = Long.MIN_VALUE;
+            long offset = KeyframeIndex.UNKNOWN_OFFSET;
+            boolean keyframe = false;
+            for(String field: line.split("\\|"))
+            {
+                int equals = field.indexOf('=');
+                if(equals < 0)
+                {
+                    continue;
+                }
+                String value = field.substring(equals + 1);
+                try
+                {
+                    switch(field.substring(0, equals))
+                    {
+                        case "pts_time":
+                            time = Math.round(Double.parseDouble(value) * 1e6);
+                            break;
+                        case "pos":
+                            offset = Long.parseLong(value);
+                            break;
+                        case "flags":
+                            keyframe = value.startsWith("K");
+                            break;
+                    }
+                }
+                catch(NumberFormatException e)
+                {
+                    // N/A
+                }
+            }
+            
+            if(keyframe && time != Long.MIN_VALUE)
+            {
+                if(count == times.length)
+                {
+                    times = Arrays.copyOf(times, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                times[count] = time;
+                offsets[count] = offset;
+                count++;
+            }
+        }
+        
+        KeyframeIndex toIndex(long videoSize)
+        {
+            // packets come in decode order, which for keyframes is almost always presentation order too, but
+            // searching needs it to be certain
+            Integer[] order = new Integer[count];
+            for(int i = 0; i < count; i++)
+            {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+            long[] sortedTimes = new long[count];
+            long[] sortedOffsets = new long[count];
+            for(int i = 0; i < count; i++)
+            {
+                sortedTimes[i] = times[order[i]];
+                sortedOffsets[i] = offsets[order[i]];
+            }
+            return new KeyframeIndex(videoSize, sortedTimes, sortedOffsets);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventProperty;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// every video's metadata, held compactly and never evicted; entries only go away when their video does.
+// hit, miss and load time stats go out as a METADATA_CACHE_STATS event whenever they've changed
+public class MetadataCache
+{
+    private static final long REPORT_INTERVAL_SECONDS = 60;
+    // the map node, the File and its path string, not counting the path's characters
+    private static final int KEY_BYTES = 32 + 16 + 40;
+    
+    private final EventQueue events;
+    private final Function<File, String> thumbnailPaths;
+    private final Map<File, CompactMetadata> entries;
+    private final Interner<String> gameNames;
+    
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder loads;
+    private final LongAdder loadNanos;
+    private Stats lastReported;
+    
+    // thumbnailPaths gives the path a video's thumbnail is saved at unless its metadata says otherwise
+    MetadataCache(EventQueue events, Function<File, String> thumbnailPaths)
+    {
+        this.events = events;
+        this.thumbnailPaths = thumbnailPaths;
+        entries = new ConcurrentHashMap<>();
+        gameNames = Interners.newWeakInterner();
+        
+        hits = new LongAdder();
+        misses = new LongAdder();
+        loads = new LongAdder();
+        loadNanos = new LongAdder();
+        
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metadata cache stats thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleWithFixedDelay(this::report, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS,
+                                        TimeUnit.SECONDS);
+    }
+    
+    // counts as a hit or a miss; a miss should be followed by a load and a put
+    VideoMetadata get(File video)
+    {
+        CompactMetadata entry = entries.get(video);
+        if(entry == null)
+        {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.unpack(thumbnailPaths.apply(video));
+    }
+    
+    // for peeking, e.g. while painting, without it showing up in the stats
+    VideoMetadata getIfPresent(File video)
+    {
+        CompactMetadata entry = entries.get(video);
+        return entry != null ? entry.unpack(thumbnailPaths.apply(video)) : null;
+    }
+    
+    void put(File video, VideoMetadata metadata)
+    {
+        entries.put(video, CompactMetadata.pack(metadata, thumbnailPaths.apply(video), gameNames));
+    }
+    
+    void invalidate(File video)
+    {
+        entries.remove(video);
+    }
+    
+    // what's cached for the video right now, or null; only good for comparing with a later version
+    Object getVersion(File video)
+    {
+        return entries.get(video);
+    }
+    
+    // for metadata loaded while the given version was cached. does nothing and returns false if anything's been put
+    // since, since that's newer than what was loaded
+    boolean putIfUnchanged(File video, Object version, VideoMetadata metadata)
+    {
+        CompactMetadata entry = CompactMetadata.pack(metadata, thumbnailPaths.apply(video), gameNames);
+        return version == null
+               ? entries.putIfAbsent(video, entry) == null
+               : entries.replace(video, (CompactMetadata) version, entry);
+    }
+    
+    void invalidate(File video, Object version)
+    {
+        if(version != null)
+        {
+            entries.remove(video, version);
+        }
+    }
+    
+    void recordLoad(long nanos)
+    {
+        loads.increment();
+        loadNanos.add(nanos);
+    }
+    
+    public Stats getStats()
+    {
+        long estimatedBytes = 0;
+        for(Map.Entry<File, CompactMetadata> entry: entries.entrySet())
+        {
+            estimatedBytes += KEY_BYTES + entry.getKey().getPath().length() + entry.getValue().estimateBytes();
+        }
+        return new Stats(entries.size(), estimatedBytes, hits.sum(), misses.sum(), loads.sum(), loadNanos.sum());
+    }
+    
+    private void report()
+    {
+        Stats stats = getStats();
+        if(!stats.equals(lastReported))
+        {
+            lastReported = stats;
+            events.postEvent(new Event(EventType.METADATA_CACHE_STATS, stats.toString(),
+                                       Map.of(EventProperty.CACHE_STATS, stats)));
+        }
+    }
+    
+    public static class Stats
+    {
+        private final int entries;
+        private final long estimatedBytes;
+        private final long hits;
+        private final long misses;
+        private final long loads;
+        private final long loadNanos;
+        
+        private Stats(int entries, long estimatedBytes, long hits, long misses, long loads, long loadNanos)
+        {
+            this.entries = entries;
+            this.estimatedBytes = estimatedBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.loadNanos = loadNanos;
+        }
+        
+        public int getEntries()
+        {
+            return entries;
+        }
+        
+        public long getEstimatedBytes()
+        {
+            return estimatedBytes;
+        }
+        
+        public long getHits()
+        {
+            return hits;
+        }
+        
+        public long getMisses()
+        {
+            return misses;
+        }
+        
+        public double getHitRate()
+        {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+        
+        public long getLoads()
+        {
+            return loads;
+        }
+        
+        public double getAverageLoadMillis()
+        {
+            return loads == 0 ? 0 : loadNanos / 1e6 / loads;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof Stats))
+            {
+                return false;
+            }
+            Stats other = (Stats) o;
+            return entries == other.entries && estimatedBytes == other.estimatedBytes && hits == other.hits
+                    && misses == other.misses && loads == other.loads && loadNanos == other.loadNanos;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(entries, estimatedBytes, hits, misses, loads, loadNanos);
+        }
+        
+        @Override
+        public String toString()
+        {
+            return String.format("Metadata cache: %d videos in about %d KB, %.1f%% hit rate, %d loads averaging %.2fms",
+                                 entries, estimatedBytes / 1024, getHitRate() * 100, loads,
+                                 getAverageLoadMillis());
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// all video metadata in one append-only file, with the offset of each video's latest record kept in memory.
+// every record is [payload length][crc32 of payload][op][key length][key][metadata json], so a write cut off by a
+// crash is found and dropped the next time the file is opened
+@Singleton
+public class MetadataStore implements AutoCloseable
+{
+    private static final Path DEFAULT_DIR = Settings.SETTINGS_DIR.resolve("videoMetadata");
+    
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 1024 * 1024;
+    // below this there's no point rewriting the file, however much of it is stale
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+    
+    private final EventQueue events;
+    private final Path storeDir;
+    private final Path logPath;
+    private final Path compactPath;
+    private final ObjectMapper objectMapper;
+    private final ReadWriteLock lock;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionScheduled;
+    
+    // guarded by lock, and reads that share it also lock the file itself since they have to seek. it's only used
+    // through RandomAccessFile's own methods; a FileChannel (including this file's) is closed for good when a thread
+    // using it is interrupted, which would break the store for the rest of the session
+    private RandomAccessFile file;
+    // once set, the store stays closed; file alone can't say, since it's also null before first use and after a
+    // failed compaction, both of which reopen it
+    private boolean closed;
+    private final Map<String, Location> index;
+    private long fileBytes;
+    private long liveBytes;
+    
+    @Inject
+    public MetadataStore(EventQueue events)
+    {
+        this(events, DEFAULT_DIR);
+    }
+    
+    public MetadataStore(EventQueue events, Path storeDir)
+    {
+        this.events = events;
+        this.storeDir = storeDir;
+        logPath = storeDir.resolve("metadata.log");
+        compactPath = storeDir.resolve("metadata.log.compact");
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JodaModule());
+        lock = new ReentrantReadWriteLock();
+        index = new HashMap<>();
+        compactionScheduled = new AtomicBoolean();
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metadata compaction thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // thumbnails are kept alongside the store
+    public Path getDirectory()
+    {
+        return storeDir;
+    }
+    
+    public VideoMetadata get(String key) throws IOException
+    {
+        open();
+        ByteBuffer record;
+        lock.readLock().lock();
+        try
+        {
+            Location location = index.get(key);
+            if(location == null)
+            {
+                return null;
+            }
+            if(file == null)
+            {
+                throw new IOException("metadata store is closed");
+            }
+            record = ByteBuffer.allocate(location.length);
+            synchronized(file)
+            {
+                file.seek(location.offset);
+                file.readFully(record.array());
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        
+        // the record was checked when it was written or recovered, so just skip to the json
+        int keyLength = record.getShort(HEADER_BYTES + 1);
+        int valueOffset = HEADER_BYTES + 3 + keyLength;
+        return objectMapper.readValue(record.array(), valueOffset, record.capacity() - valueOffset,
+                                      VideoMetadata.class);
+    }
+    
+    public boolean contains(String key) throws IOException
+    {
+        open();
+        lock.readLock().lock();
+        try
+        {
+            return index.containsKey(key);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Set<String> keys() throws IOException
+    {
+        open();
+        lock.readLock().lock();
+        try
+        {
+            return Set.copyOf(index.keySet());
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void put(String key, VideoMetadata metadata) throws IOException
+    {
+        append(OP_PUT, key, objectMapper.writeValueAsBytes(metadata));
+    }
+    
+    public void delete(String key) throws IOException
+    {
+        open();
+        if(contains(key))
+        {
+            append(OP_DELETE, key, new byte[0]);
+        }
+    }
+    
+    @Override
+    public void close()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            closed = true;
+            compactor.shutdown();
+            if(file != null)
+            {
+                file.close();
+                file = null;
+            }
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "failed to close metadata store: " + e.getMessage());
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void append(byte op, String key, byte[] value) throws IOException
+    {
+        open();
+        ByteBuffer record = encode(op, key, value);
+        lock.writeLock().lock();
+        try
+        {
+            if(file == null)
+            {
+                throw new IOException("metadata store is closed");
+            }
+            long offset = fileBytes;
+            int length = record.remaining();
+            try
+            {
+                file.seek(offset);
+                file.write(record.array(), 0, length);
+                file.getFD().sync();
+            }
+            catch(IOException e)
+            {
+                // take back whatever part of the record made it in, so the file still ends where the index does
+                try
+                {
+                    file.setLength(offset);
+                }
+                catch(IOException truncateFailure)
+                {
+                    e.addSuppressed(truncateFailure);
+                }
+                throw e;
+            }
+            fileBytes += length;
+            
+            Location previous = op == OP_PUT ? index.put(key, new Location(offset, length)) : index.remove(key);
+            if(previous != null)
+            {
+                liveBytes -= previous.length;
+            }
+            if(op == OP_PUT)
+            {
+                liveBytes += length;
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        
+        maybeCompact();
+    }
+    
+    // deferred until first use because SETTINGS_DIR doesn't exist during construction on first launch
+    private void open() throws IOException
+    {
+        lock.readLock().lock();
+        try
+        {
+            if(closed)
+            {
+                throw new IOException("metadata store is closed");
+            }
+            if(file != null)
+            {
+                return;
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        
+        lock.writeLock().lock();
+        try
+        {
+            if(closed)
+            {
+                throw new IOException("metadata store is closed");
+            }
+            if(file != null)
+            {
+                return;
+            }
+            
+            File dir = storeDir.toFile();
+            if(!dir.exists() && !dir.mkdirs())
+            {
+                events.postEvent(new Event(EventType.FAILURE, "Failed to create metadata cache"));
+                throw new IOException("couldn't create " + dir);
+            }
+            // a compaction that never finished; the log it was replacing is still intact
+            Files.deleteIfExists(compactPath);
+            
+            file = new RandomAccessFile(logPath.toFile(), "rw");
+            recover();
+            // still holding the lock, so nobody can see the store before the old files are in it
+            migrateJsonFiles();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // rebuilds the index from the log, cutting it off at the first record that's incomplete or corrupt
+    private void recover() throws IOException
+    {
+        index.clear();
+        liveBytes = 0;
+        long size = file.length();
+        long offset = 0;
+        // the stream shares the file's position, which nothing else depends on. it isn't closed, since that would
+        // close the file too
+        file.seek(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD()), 64 * 1024));
+        CRC32 crc = new CRC32();
+        while(offset + HEADER_BYTES <= size)
+        {
+            int payloadLength = in.readInt();
+            int checksum = in.readInt();
+            if(payloadLength < 3 || payloadLength > MAX_PAYLOAD_BYTES || offset + HEADER_BYTES + payloadLength > size)
+            {
+                break;
+            }
+            
+            byte[] payload = new byte[payloadLength];
+            try
+            {
+                in.readFully(payload);
+            }
+            catch(EOFException e)
+            {
+                break;
+            }
+            crc.reset();
+            crc.update(payload);
+            if((int) crc.getValue() != checksum)
+            {
+                break;
+            }
+            
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            byte op = buffer.get();
+            int keyLength = buffer.getShort();
+            if(keyLength < 0 || 3 + keyLength > payloadLength)
+            {
+                break;
+            }
+            String key = new String(payload, 3, keyLength, StandardCharsets.UTF_8);
+            int length = HEADER_BYTES + payloadLength;
+            Location previous = op == OP_PUT ? index.put(key, new Location(offset, length)) : index.remove(key);
+            if(previous != null)
+            {
+                liveBytes -= previous.length;
+            }
+            if(op == OP_PUT)
+            {
+                liveBytes += length;
+            }
+            offset += length;
+        }
+        
+        if(offset < size)
+        {
+            long recovered = offset;
+            events.postEvent(EventType.DEBUG, () -> String.format("dropping %d bytes of damaged metadata after offset %d",
+                                                                  size - recovered, recovered));
+            file.setLength(offset);
+            file.getFD().sync();
+        }
+        fileBytes = offset;
+    }
+    
+    // one-time import of the per-video json files that came before this store; the key is the old file name, and
+    // each file is only deleted once its contents are in the log, so an interrupted import picks up where it left off
+    private void migrateJsonFiles()
+    {
+        File[] jsonFiles = storeDir.toFile().listFiles((dir, name) -> name.endsWith(".json"));
+        if(jsonFiles == null || jsonFiles.length == 0)
+        {
+            return;
+        }
+        
+        int migrated = 0;
+        for(File jsonFile: jsonFiles)
+        {
+            String name = jsonFile.getName();
+            String key = name.substring(0, name.length() - ".json".length());
+            try
+            {
+                if(!contains(key))
+                {
+                    put(key, objectMapper.readValue(jsonFile, VideoMetadata.class));
+                    migrated++;
+                }
+                Files.delete(jsonFile.toPath());
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> String.format("failed to migrate metadata file %s: %s",
+                                                                      name, e.getMessage()));
+            }
+        }
+        
+        int migratedCount = migrated;
+        events.postEvent(EventType.DEBUG, () -> String.format("migrated %d metadata files into %s", migratedCount,
+                                                              logPath.getFileName()));
+    }
+    
+    private void maybeCompact()
+    {
+        boolean worthCompacting;
+        lock.readLock().lock();
+        try
+        {
+            worthCompacting = !closed && fileBytes > COMPACT_MIN_BYTES && fileBytes > 2 * liveBytes;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        
+        if(worthCompacting && compactionScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                compactor.execute(() -> {
+                    try
+                    {
+                        compact();
+                    }
+                    catch(IOException e)
+                    {
+                        events.postEvent(EventType.DEBUG, () -> "metadata compaction failed: " + e.getMessage());
+                    }
+                    finally
+                    {
+                        compactionScheduled.set(false);
+                    }
+                });
+            }
+            catch(RejectedExecutionException e)
+            {
+                // closed since the check above
+                compactionScheduled.set(false);
+            }
+        }
+    }
+    
+    // copies the live records to a new file and swaps it in. writes wait for the copy, which is only as big as the
+    // metadata for the videos that still exist
+    private void compact() throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if(file == null)
+            {
+                return;
+            }
+            
+            long before = fileBytes;
+            Map<String, Location> compacted = new HashMap<>();
+            long offset = 0;
+            try(RandomAccessFile out = new RandomAccessFile(compactPath.toFile(), "rw"))
+            {
+                out.setLength(0);
+                for(Map.Entry<String, Location> entry: index.entrySet())
+                {
+                    Location location = entry.getValue();
+                    byte[] record = new byte[location.length];
+                    file.seek(location.offset);
+                    file.readFully(record);
+                    out.write(record);
+                    compacted.put(entry.getKey(), new Location(offset, location.length));
+                    offset += location.length;
+                }
+                out.getFD().sync();
+            }
+            
+            // Windows won't replace a file that's open, so the old log has to be closed first
+            file.close();
+            file = null;
+            Files.move(compactPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            file = new RandomAccessFile(logPath.toFile(), "rw");
+            
+            index.clear();
+            index.putAll(compacted);
+            fileBytes = offset;
+            liveBytes = offset;
+            long after = offset;
+            events.postEvent(EventType.DEBUG, () -> String.format("compacted metadata store from %d to %d bytes",
+                                                                  before, after));
+        }
+        finally
+        {
+            // if the swap failed partway, the next use reopens whichever log is there and recovers from it
+            if(file == null)
+            {
+                index.clear();
+            }
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private static ByteBuffer encode(byte op, String key, byte[] value) throws IOException
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 3 + keyBytes.length + value.length;
+        if(keyBytes.length > Short.MAX_VALUE || payloadLength > MAX_PAYLOAD_BYTES)
+        {
+            throw new IOException("metadata record too large for " + key);
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        record.position(HEADER_BYTES);
+        record.put(op).putShort((short) keyBytes.length).put(keyBytes).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadLength);
+        record.putInt(0, payloadLength).putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+    
+    private static class Location
+    {
+        private final long offset;
+        private final int length;
+        
+        private Location(long offset, int length)
+        {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
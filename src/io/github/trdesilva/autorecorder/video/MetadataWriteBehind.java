@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// holds metadata saves for a moment before writing them, so a burst of changes to one video (bookmarks, tagging,
+// upload links) turns into a single write of the last version
+class MetadataWriteBehind
+{
+    static final long FLUSH_DELAY_MILLIS = 2000;
+    
+    private final BiConsumer<File, VideoMetadata> writer;
+    private final Map<File, VideoMetadata> pending;
+    private final ScheduledExecutorService flusher;
+    
+    MetadataWriteBehind(BiConsumer<File, VideoMetadata> writer)
+    {
+        this.writer = writer;
+        pending = new ConcurrentHashMap<>();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Metadata flush thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the flusher is a daemon so it can't hold up exit, which means anything still waiting has to go out here
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll, "Metadata flush shutdown"));
+    }
+    
+    void save(File video, VideoMetadata metadata)
+    {
+        // only the first save of a burst schedules a flush; later ones just replace what it'll write
+        if(pending.put(video, metadata) == null)
+        {
+            flusher.schedule(() -> flush(video), FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    VideoMetadata getPending(File video)
+    {
+        return pending.get(video);
+    }
+    
+    // for anyone about to write the video's metadata themselves, who should include this rather than lose it
+    VideoMetadata takePending(File video)
+    {
+        return pending.remove(video);
+    }
+    
+    void flushAll()
+    {
+        for(File video: pending.keySet())
+        {
+            flush(video);
+        }
+    }
+    
+    private void flush(File video)
+    {
+        VideoMetadata metadata = pending.remove(video);
+        if(metadata != null)
+        {
+            writer.accept(video, metadata);
+        }
+    }
+}
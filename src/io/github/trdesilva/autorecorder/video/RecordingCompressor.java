@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import com.google.inject.Provider;
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.clip.ClipQueue;
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// re-encodes recordings once they're old enough that they're unlikely to be clipped again, trading encode time while
+// the machine is otherwise idle for a lot less disk. OBS output is encoded fast for live capture, so a slow x264
+// preset at a higher CRF typically gets the same recording into a fraction of the space
+class RecordingCompressor
+{
+    private static final long SCAN_INTERVAL_MINUTES = 30;
+    // the first scan waits a bit so it doesn't compete with startup
+    private static final long INITIAL_DELAY_MINUTES = 5;
+    private static final String PRESET = "slow";
+    private static final String CRF = "28";
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // a recording that can't be recompressed (usually because it's open somewhere, so it can't be replaced) is tried
+    // again after a wait that doubles each time, up to a day
+    private static final long MAX_RETRY_DELAY_MINUTES = TimeUnit.DAYS.toMinutes(1);
+    // gives clips queued together a chance to all finish before an encode starts competing with them
+    private static final long CLIP_SETTLE_MINUTES = 1;
+    
+    private final Settings settings;
+    private final VideoDirectoryIndex index;
+    private final VideoMetadataHandler metadataHandler;
+    private final FfmpegHelper ffmpegHelper;
+    private final EventQueue events;
+    private final Provider<ClipQueue> clipQueue;
+    private final ScheduledExecutorService executor;
+    // only used from the executor's thread
+    private final Map<File, FailedAttempts> failures;
+    
+    // guarded by this
+    private boolean recording;
+    private Future<?> run;
+    // the thread running ffmpeg, if it's running. only that is interrupted to stop a run; the rest of a run reads and
+    // writes metadata, which shouldn't be interrupted partway
+    private Thread encoder;
+    
+    RecordingCompressor(Settings settings, VideoDirectoryIndex index, VideoMetadataHandler metadataHandler,
+                        FfmpegHelper ffmpegHelper, EventQueue events, Provider<ClipQueue> clipQueue)
+    {
+        this.settings = settings;
+        this.index = index;
+        this.metadataHandler = metadataHandler;
+        this.ffmpegHelper = ffmpegHelper;
+        this.events = events;
+        this.clipQueue = clipQueue;
+        failures = new HashMap<>();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Recompression thread");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::requestRun, INITIAL_DELAY_MINUTES, SCAN_INTERVAL_MINUTES,
+                                        TimeUnit.MINUTES);
+    }
+    
+    // a recording starting stops whatever's being re-encoded, which is picked up again on a later run
+    synchronized void setRecording(boolean recording)
+    {
+        this.recording = recording;
+        if(recording && encoder != null)
+        {
+            encoder.interrupt();
+        }
+        else if(!recording)
+        {
+            requestRun();
+        }
+    }
+    
+    // clips being made get the cores to themselves, so a run is put off until they're done
+    void clipEnded()
+    {
+        executor.schedule(this::requestRun, CLIP_SETTLE_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    private synchronized void requestRun()
+    {
+        if(!recording && (run == null || run.isDone()) && settings.isRecompressionEnabled()
+                && !clipQueue.get().hasRunningJobs())
+        {
+            run = executor.submit(this::run);
+        }
+    }
+    
+    private synchronized boolean shouldStop()
+    {
+        return recording || clipQueue.get().hasRunningJobs();
+    }
+    
+    private void run()
+    {
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(settings.getRecompressionAgeDays());
+        File mostRecent = index.getMostRecent();
+        List<VideoDirectoryIndex.Entry> eligible = index.getEntries()
+                                                        .stream()
+                                                        .filter(entry -> entry.getLastModified() < cutoff)
+                                                        .filter(entry -> !entry.getFile().equals(mostRecent))
+                                                        .sorted(Comparator.comparingLong(
+                                                                VideoDirectoryIndex.Entry::getLastModified))
+                                                        .collect(Collectors.toList());
+        
+        int recompressed = 0;
+        long bytesSaved = 0;
+        for(VideoDirectoryIndex.Entry entry: eligible)
+        {
+            if(shouldStop())
+            {
+                break;
+            }
+            
+            File video = entry.getFile();
+            FailedAttempts failed = failures.get(video);
+            if((failed != null && System.currentTimeMillis() < failed.retryAt)
+                    || metadataHandler.getMetadata(video).isRecompressed())
+            {
+                continue;
+            }
+            
+            try
+            {
+                long saved = recompress(video);
+                failures.remove(video);
+                if(saved > 0)
+                {
+                    recompressed++;
+                    bytesSaved += saved;
+                }
+            }
+            catch(InterruptedException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> "Recompression stopped for a recording: " + video.getName());
+                break;
+            }
+            catch(IOException e)
+            {
+                FailedAttempts attempts = failures.computeIfAbsent(video, file -> new FailedAttempts());
+                long delayMinutes = attempts.failed();
+                events.postEvent(EventType.DEBUG, () -> String.format("Failed to recompress %s, trying again in %d minutes: %s",
+                                                                      video.getName(), delayMinutes, e.getMessage()));
+            }
+        }
+        
+        if(recompressed > 0)
+        {
+            events.postEvent(new Event(EventType.INFO, String.format("Recompressed %d recordings, saving %d MB",
+                                                                     recompressed, bytesSaved / BYTES_PER_MB)));
+        }
+    }
+    
+    // returns how many bytes were saved
+    private long recompress(File video) throws IOException, InterruptedException
+    {
+        Path source = video.toPath();
+        // a leading dot keeps the index and the recording list from treating it as a recording
+        Path temp = source.resolveSibling("." + video.getName());
+        Files.deleteIfExists(temp);
+        
+        // half the cores, so the rest of the machine stays usable while it runs
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        List<String> ffmpegArgs = new LinkedList<>(Arrays.asList("-i", source.toString(), "-map", "0", "-c:v",
+                                                                 "libx264", "-preset", PRESET, "-crf", CRF, "-c:a",
+                                                                 "copy", "-threads", Integer.toString(threads),
+                                                                 temp.toString()));
+        events.postEvent(EventType.DEBUG, () -> "Recompressing " + video.getName());
+        try
+        {
+            synchronized(this)
+            {
+                if(recording)
+                {
+                    throw new InterruptedException();
+                }
+                encoder = Thread.currentThread();
+            }
+            try
+            {
+                ffmpegHelper.runFfmpeg(ffmpegArgs);
+            }
+            finally
+            {
+                synchronized(this)
+                {
+                    encoder = null;
+                }
+                // a stop that came just as ffmpeg finished is too late to matter, and would only interrupt what's next
+                Thread.interrupted();
+            }
+            
+            long originalSize = Files.size(source);
+            long newSize = Files.size(temp);
+            if(newSize < originalSize && Files.exists(source))
+            {
+                // keep the original's time, since that's what everything sorts and ages recordings by
+                FileTime lastModified = Files.getLastModifiedTime(source);
+                Files.setLastModifiedTime(temp, lastModified);
+                Files.move(temp, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                index.refresh(video);
+                metadataHandler.saveRecompressed(video);
+                return originalSize - newSize;
+            }
+            
+            // already about as small as it gets, so leave it and don't try again
+            metadataHandler.saveRecompressed(video);
+            return 0;
+        }
+        finally
+        {
+            // ffmpeg may not have let go of it yet after being stopped, and failing here shouldn't hide why it stopped
+            try
+            {
+                Files.deleteIfExists(temp);
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> String.format("Couldn't delete %s: %s", temp.getFileName(),
+                                                                      e.getMessage()));
+            }
+        }
+    }
+    
+    private static class FailedAttempts
+    {
+        private int count;
+        private long retryAt;
+        
+        // returns how long to wait before the next attempt
+        long failed()
+        {
+            count++;
+            long delayMinutes = Math.min(MAX_RETRY_DELAY_MINUTES, SCAN_INTERVAL_MINUTES << Math.min(count - 1, 16));
+            retryAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(delayMinutes);
+            return delayMinutes;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// matches each recording session to the file OBS creates for it as soon as the directory watcher sees the file, and
+// tags it with the session's game. sessions and files pair up in order, so back to back recordings each get their own
+class RecordingFileBinder
+{
+    // how long OBS gets to create the file once a recording has started
+    private static final long BIND_TIMEOUT_MILLIS = 10000;
+    // OBS is started before RECORDING_START is posted, so the file can show up first
+    private static final long EARLY_FILE_MILLIS = 5000;
+    
+    private final VideoMetadataHandler metadataHandler;
+    private final EventQueue events;
+    private final ScheduledExecutorService executor;
+    
+    // guarded by this
+    private final Deque<Session> waitingSessions;
+    private final Map<File, Long> unclaimedFiles;
+    
+    RecordingFileBinder(VideoMetadataHandler metadataHandler, EventQueue events)
+    {
+        this.metadataHandler = metadataHandler;
+        this.events = events;
+        waitingSessions = new ArrayDeque<>();
+        unclaimedFiles = new HashMap<>();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Recording binder thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    void sessionStarted(String gameName, long startMillis)
+    {
+        Session session = new Session(gameName);
+        File file;
+        synchronized(this)
+        {
+            file = claimEarlyFile(startMillis);
+            if(file == null)
+            {
+                waitingSessions.addLast(session);
+            }
+        }
+        
+        if(file != null)
+        {
+            bind(session, file);
+        }
+        else
+        {
+            executor.schedule(() -> expire(session), BIND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    // called by the directory watcher for every new video
+    void fileCreated(File file)
+    {
+        Session session;
+        synchronized(this)
+        {
+            session = waitingSessions.pollFirst();
+            if(session == null)
+            {
+                long now = System.currentTimeMillis();
+                unclaimedFiles.values().removeIf(created -> created < now - EARLY_FILE_MILLIS);
+                unclaimedFiles.put(file, now);
+            }
+        }
+        
+        if(session != null)
+        {
+            bind(session, file);
+        }
+    }
+    
+    // called with the monitor held; the oldest file that appeared shortly before the session started, if any
+    private File claimEarlyFile(long startMillis)
+    {
+        File oldest = null;
+        long oldestTime = Long.MAX_VALUE;
+        Iterator<Map.Entry<File, Long>> iterator = unclaimedFiles.entrySet().iterator();
+        while(iterator.hasNext())
+        {
+            Map.Entry<File, Long> entry = iterator.next();
+            if(entry.getValue() < startMillis - EARLY_FILE_MILLIS)
+            {
+                // too old to be this session's, and so too old for any later one
+                iterator.remove();
+            }
+            else if(entry.getValue() < oldestTime)
+            {
+                oldest = entry.getKey();
+                oldestTime = entry.getValue();
+            }
+        }
+        
+        if(oldest != null)
+        {
+            unclaimedFiles.remove(oldest);
+        }
+        return oldest;
+    }
+    
+    private void expire(Session session)
+    {
+        boolean expired;
+        synchronized(this)
+        {
+            expired = waitingSessions.remove(session);
+        }
+        if(expired)
+        {
+            events.postEvent(new Event(EventType.WARNING, "Could not find new recording; did OBS start?"));
+        }
+    }
+    
+    private void bind(Session session, File file)
+    {
+        executor.execute(() -> {
+            metadataHandler.saveGameName(file, session.gameName);
+            events.postEvent(EventType.DEBUG, () -> String.format("Game name %s set on metadata for %s",
+                                                                  session.gameName, file.getName()));
+        });
+    }
+    
+    private static class Session
+    {
+        private final String gameName;
+        
+        private Session(String gameName)
+        {
+            this.gameName = gameName;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import io.github.trdesilva.autorecorder.Settings;
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// auto-delete for the recordings directory. the policies come from the settings on every run, and runs happen on a
+// low priority thread of their own so nothing that asks for one, like a recording starting, ever waits on it
+class RetentionEngine
+{
+    private static final long BYTES_PER_GB = 1024L * 1024L * 1024L;
+    
+    private final Settings settings;
+    private final VideoDirectoryIndex index;
+    private final VideoMetadataHandler metadataHandler;
+    private final EventQueue events;
+    private final ExecutorService executor;
+    // requests that come in while one is waiting to start are covered by it
+    private final AtomicBoolean runPending;
+    
+    RetentionEngine(Settings settings, VideoDirectoryIndex index, VideoMetadataHandler metadataHandler,
+                    EventQueue events)
+    {
+        this.settings = settings;
+        this.index = index;
+        this.metadataHandler = metadataHandler;
+        this.events = events;
+        runPending = new AtomicBoolean();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Auto-delete thread");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    void requestRun()
+    {
+        if(runPending.compareAndSet(false, true))
+        {
+            executor.execute(() -> {
+                runPending.set(false);
+                run();
+            });
+        }
+    }
+    
+    private List<RetentionPolicy> buildPolicies()
+    {
+        List<RetentionPolicy> policies = new ArrayList<>();
+        if(settings.isAutoDeleteKeepBookmarkedEnabled())
+        {
+            policies.add(RetentionPolicies.keepBookmarked());
+        }
+        if(settings.isAutoDeleteKeepClippedEnabled())
+        {
+            policies.add(RetentionPolicies.keepClipped());
+        }
+        if(settings.getAutoDeleteMinimumAgeDays() > 0)
+        {
+            policies.add(RetentionPolicies.minimumAge(TimeUnit.DAYS.toMillis(settings.getAutoDeleteMinimumAgeDays())));
+        }
+        
+        // game quotas first, so the overall limit only takes what they didn't already free up
+        if(!settings.getAutoDeleteGameQuotasGB().isEmpty())
+        {
+            Map<String, Long> quotas = new HashMap<>();
+            settings.getAutoDeleteGameQuotasGB().forEach((game, gb) -> quotas.put(game, gb * BYTES_PER_GB));
+            policies.add(RetentionPolicies.perGameQuota(quotas));
+        }
+        policies.add(RetentionPolicies.oldestFirst(settings.getAutoDeleteThresholdGB() * BYTES_PER_GB));
+        return policies;
+    }
+    
+    private void run()
+    {
+        if(!settings.isAutoDeleteEnabled() || !index.isValid())
+        {
+            return;
+        }
+        events.postEvent(EventType.DEBUG, "Starting autodelete check");
+        
+        List<VideoDirectoryIndex.Entry> entries = index.getEntries();
+        // don't automatically delete if there's only one video because that might be the active recording
+        if(entries.size() < 2)
+        {
+            events.postEvent(EventType.DEBUG, "Less than 2 videos, not deleting");
+            return;
+        }
+        entries.sort(Comparator.comparingLong(VideoDirectoryIndex.Entry::getLastModified));
+        
+        List<RetentionPolicy> policies = buildPolicies();
+        File mostRecent = index.getMostRecent();
+        List<RetentionPolicy.Candidate> candidates = new ArrayList<>(entries.size());
+        for(VideoDirectoryIndex.Entry entry: entries)
+        {
+            // the most recent one is left alone for the same reason
+            if(entry.getFile().equals(mostRecent))
+            {
+                continue;
+            }
+            File video = entry.getFile();
+            RetentionPolicy.Candidate candidate =
+                    new RetentionPolicy.Candidate(entry, () -> metadataHandler.getMetadata(video));
+            if(policies.stream().noneMatch(policy -> policy.protects(candidate)))
+            {
+                candidates.add(candidate);
+            }
+        }
+        
+        RetentionPolicy.Plan plan = new RetentionPolicy.Plan(index.getTotalBytes());
+        for(RetentionPolicy policy: policies)
+        {
+            policy.select(candidates, plan);
+        }
+        
+        if(!plan.getSelected().isEmpty())
+        {
+            events.postEvent(new Event(EventType.INFO, String.format(
+                    "Recording storage is over its limits; cleaning up %d old recordings",
+                    plan.getSelected().size())));
+        }
+        
+        int deletedVideos = 0;
+        for(RetentionPolicy.Candidate candidate: plan.getSelected())
+        {
+            File video = candidate.getFile();
+            if(video.delete())
+            {
+                deletedVideos++;
+                metadataHandler.deleteMetadata(video);
+                index.refresh(video);
+            }
+            else
+            {
+                events.postEvent(EventType.DEBUG, () -> "Failed to delete " + video.getAbsolutePath());
+            }
+        }
+        
+        if(deletedVideos > 0)
+        {
+            events.postEvent(new Event(EventType.INFO, String.format("Deleted %d recordings", deletedVideos)));
+        }
+        else
+        {
+            long remainingSize = index.getTotalBytes();
+            events.postEvent(EventType.DEBUG, () -> String.format("Nothing deleted, total size %d", remainingSize));
+        }
+        
+        if(plan.getRemainingBytes() > settings.getAutoDeleteThresholdGB() * BYTES_PER_GB)
+        {
+            events.postEvent(new Event(EventType.WARNING, String.format(
+                    "Recording storage is still over %dGB after cleaning up",
+                    settings.getAutoDeleteThresholdGB())));
+        }
+    }
+}
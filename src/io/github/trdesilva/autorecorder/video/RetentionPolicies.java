@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// the built-in retention policies
+public final class RetentionPolicies
+{
+    private RetentionPolicies()
+    {
+    }
+    
+    // the original auto-delete: oldest recordings go until everything fits in maxBytes
+    public static RetentionPolicy oldestFirst(long maxBytes)
+    {
+        return new RetentionPolicy()
+        {
+            @Override
+            public void select(List<Candidate> candidates, Plan plan)
+            {
+                for(Candidate candidate: candidates)
+                {
+                    if(plan.getRemainingBytes() <= maxBytes)
+                    {
+                        return;
+                    }
+                    plan.select(candidate);
+                }
+            }
+        };
+    }
+    
+    // the same, but per game, over the recordings tagged with that game; protected ones don't count toward the quota
+    public static RetentionPolicy perGameQuota(Map<String, Long> maxBytesByGame)
+    {
+        return new RetentionPolicy()
+        {
+            @Override
+            public void select(List<Candidate> candidates, Plan plan)
+            {
+                Map<String, Long> gameBytes = new HashMap<>();
+                for(Candidate candidate: candidates)
+                {
+                    String game = candidate.getMetadata().getGameName();
+                    if(maxBytesByGame.containsKey(game) && !plan.isSelected(candidate))
+                    {
+                        gameBytes.merge(game, candidate.getSize(), Long::sum);
+                    }
+                }
+                
+                for(Candidate candidate: candidates)
+                {
+                    String game = candidate.getMetadata().getGameName();
+                    Long used = gameBytes.get(game);
+                    if(used != null && used > maxBytesByGame.get(game) && !plan.isSelected(candidate))
+                    {
+                        plan.select(candidate);
+                        gameBytes.put(game, used - candidate.getSize());
+                    }
+                }
+            }
+        };
+    }
+    
+    public static RetentionPolicy keepBookmarked()
+    {
+        return new RetentionPolicy()
+        {
+            @Override
+            public boolean protects(Candidate candidate)
+            {
+                return !candidate.getMetadata().getBookmarks().isEmpty();
+            }
+        };
+    }
+    
+    public static RetentionPolicy keepClipped()
+    {
+        return new RetentionPolicy()
+        {
+            @Override
+            public boolean protects(Candidate candidate)
+            {
+                return candidate.getMetadata().getClipCount() > 0;
+            }
+        };
+    }
+    
+    public static RetentionPolicy minimumAge(long minimumAgeMillis)
+    {
+        return new RetentionPolicy()
+        {
+            @Override
+            public boolean protects(Candidate candidate)
+            {
+                return System.currentTimeMillis() - candidate.getLastModified() < minimumAgeMillis;
+            }
+        };
+    }
+}
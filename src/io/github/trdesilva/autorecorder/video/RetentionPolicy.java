@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// one rule about which recordings auto-delete may remove. a policy can protect recordings outright, choose some of the
+// unprotected ones for deletion, or both; the engine deletes everything any policy chooses
+public interface RetentionPolicy
+{
+    default boolean protects(Candidate candidate)
+    {
+        return false;
+    }
+    
+    // candidates are the unprotected recordings, oldest first. anything already in the plan is going regardless
+    default void select(List<Candidate> candidates, Plan plan)
+    {
+    }
+    
+    class Candidate
+    {
+        private final VideoDirectoryIndex.Entry entry;
+        private final Supplier<VideoMetadata> metadataSupplier;
+        private VideoMetadata metadata;
+        
+        Candidate(VideoDirectoryIndex.Entry entry, Supplier<VideoMetadata> metadataSupplier)
+        {
+            this.entry = entry;
+            this.metadataSupplier = metadataSupplier;
+        }
+        
+        public File getFile()
+        {
+            return entry.getFile();
+        }
+        
+        public long getSize()
+        {
+            return entry.getSize();
+        }
+        
+        public long getLastModified()
+        {
+            return entry.getLastModified();
+        }
+        
+        // loaded on first use, since most policies only need the size and age
+        public VideoMetadata getMetadata()
+        {
+            if(metadata == null)
+            {
+                metadata = metadataSupplier.get();
+            }
+            return metadata;
+        }
+    }
+    
+    class Plan
+    {
+        private final Set<Candidate> selected;
+        private long remainingBytes;
+        
+        Plan(long totalBytes)
+        {
+            selected = new LinkedHashSet<>();
+            remainingBytes = totalBytes;
+        }
+        
+        // what the recordings directory will hold once everything selected so far is gone
+        public long getRemainingBytes()
+        {
+            return remainingBytes;
+        }
+        
+        public boolean isSelected(Candidate candidate)
+        {
+            return selected.contains(candidate);
+        }
+        
+        public void select(Candidate candidate)
+        {
+            if(selected.add(candidate))
+            {
+                remainingBytes -= candidate.getSize();
+            }
+        }
+        
+        Set<Candidate> getSelected()
+        {
+            return selected;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2026 Thomas DeSilva.
+ * Distributed under GPLv3.
+ */
+
+package io.github.trdesilva.autorecorder.video;
+
+import io.github.trdesilva.autorecorder.event.Event;
+import io.github.trdesilva.autorecorder.event.EventProperty;
+import io.github.trdesilva.autorecorder.event.EventQueue;
+import io.github.trdesilva.autorecorder.event.EventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// the videos in one directory with their sizes and modification times, kept current by a WatchService so nothing has
+// to list the directory to find out what's in it. changes go out as VIDEO_ADDED, VIDEO_REMOVED and VIDEO_MODIFIED
+public class VideoDirectoryIndex implements AutoCloseable
+{
+    // a recording in progress is modified constantly, so modifications are only announced this often per file
+    private static final long MODIFIED_EVENT_INTERVAL_MILLIS = 1000;
+    
+    private final VideoType type;
+    private final VideoFilenameValidator filenameValidator;
+    private final EventQueue events;
+    private final Thread watchThread;
+    
+    // keyed by file name. changed in place by updates, and replaced whole by a rescan so readers never see it half built
+    private volatile Map<String, Entry> entries;
+    private final Map<String, Long> lastModifiedEvent;
+    private WatchService watchService;
+    private WatchKey watchKey;
+    private volatile Path directory;
+    // kept up to date on every change so they can be read without looking at the entries
+    private volatile long totalBytes;
+    private volatile Entry mostRecent;
+    private volatile Consumer<File> creationListener;
+    
+    VideoDirectoryIndex(VideoType type, VideoFilenameValidator filenameValidator, EventQueue events)
+    {
+        this.type = type;
+        this.filenameValidator = filenameValidator;
+        this.events = events;
+        entries = new ConcurrentHashMap<>();
+        lastModifiedEvent = new ConcurrentHashMap<>();
+        
+        try
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "couldn't create watch service: " + e.getMessage());
+        }
+        watchThread = new Thread(this::watch, type.name().charAt(0) + type.name().substring(1).toLowerCase()
+                + " directory watcher thread");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+    
+    // switches to watching a new directory, or stops watching if it's null
+    synchronized void setDirectory(File dir)
+    {
+        if(watchKey != null)
+        {
+            watchKey.cancel();
+            watchKey = null;
+        }
+        directory = dir != null ? dir.toPath() : null;
+        
+        if(directory != null && watchService != null)
+        {
+            try
+            {
+                // registered before scanning so nothing created in between is missed
+                watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                              StandardWatchEventKinds.ENTRY_DELETE,
+                                              StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> String.format("couldn't watch %s: %s", dir, e.getMessage()));
+            }
+        }
+        rescan();
+    }
+    
+    // called on the watcher thread with each new video as soon as it's seen, before the VIDEO_ADDED event goes out
+    void setCreationListener(Consumer<File> creationListener)
+    {
+        this.creationListener = creationListener;
+    }
+    
+    public boolean isValid()
+    {
+        Path dir = directory;
+        return dir != null && Files.isDirectory(dir) && Files.isReadable(dir);
+    }
+    
+    // sorted by name, the same order the directory lists in
+    public List<File> getVideos()
+    {
+        List<File> videos = new ArrayList<>(entries.size());
+        for(Entry entry: entries.values())
+        {
+            videos.add(entry.getFile());
+        }
+        videos.sort(Comparator.comparing(File::getName));
+        return videos;
+    }
+    
+    public List<Entry> getEntries()
+    {
+        return new ArrayList<>(entries.values());
+    }
+    
+    public Entry getEntry(File video)
+    {
+        Entry entry = entries.get(video.getName());
+        return entry != null && entry.getFile().equals(video) ? entry : null;
+    }
+    
+    public File getMostRecent()
+    {
+        Entry entry = mostRecent;
+        return entry != null ? entry.getFile() : null;
+    }
+    
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+    
+    // brings one file up to date right away, for callers that just changed it and can't wait for the watcher
+    public synchronized void refresh(File video)
+    {
+        if(directory != null && directory.equals(video.toPath().getParent()))
+        {
+            update(video.getName());
+        }
+    }
+    
+    @Override
+    public void close()
+    {
+        try
+        {
+            if(watchService != null)
+            {
+                watchService.close();
+            }
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "couldn't close watch service: " + e.getMessage());
+        }
+    }
+    
+    private void watch()
+    {
+        if(watchService == null)
+        {
+            return;
+        }
+        
+        while(true)
+        {
+            WatchKey key;
+            try
+            {
+                key = watchService.take();
+            }
+            catch(InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+            
+            // posted once the monitor's released, since a full event queue would otherwise stall everyone using the
+            // index until it drained
+            List<Event> changes = new ArrayList<>();
+            synchronized(this)
+            {
+                // events from a directory we've since switched away from
+                if(key == watchKey)
+                {
+                    for(WatchEvent<?> event: key.pollEvents())
+                    {
+                        if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        {
+                            events.postEvent(EventType.DEBUG, () -> type.name() + " directory watcher overflowed");
+                            changes.addAll(rescan());
+                        }
+                        else
+                        {
+                            Event change = update(event.context().toString());
+                            if(change != null)
+                            {
+                                changes.add(change);
+                            }
+                        }
+                    }
+                }
+                
+                if(!key.reset() && key == watchKey)
+                {
+                    // the directory itself is gone
+                    watchKey = null;
+                    changes.addAll(rescan());
+                }
+            }
+            Consumer<File> listener = creationListener;
+            for(Event change: changes)
+            {
+                if(listener != null && change.getType() == EventType.VIDEO_ADDED)
+                {
+                    listener.accept((File) change.getProperties().get(EventProperty.VIDEO_FILE));
+                }
+                events.postEvent(change);
+            }
+        }
+    }
+    
+    // called with the monitor held. the new entries and totals are built to the side and swapped in, so readers see
+    // either the old index or the new one. returns the differences between the two, which the watcher posts after a
+    // missed batch of changes; a switch to another directory doesn't post them
+    private List<Event> rescan()
+    {
+        Map<String, Entry> scanned = new ConcurrentHashMap<>();
+        if(isValid())
+        {
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                                                                        path -> filenameValidator.hasValidName(
+                                                                                path.getFileName().toString())))
+            {
+                for(Path path: stream)
+                {
+                    try
+                    {
+                        Entry entry = readEntry(path);
+                        if(entry != null)
+                        {
+                            scanned.put(path.getFileName().toString(), entry);
+                        }
+                    }
+                    catch(IOException e)
+                    {
+                        events.postEvent(EventType.DEBUG, () -> String.format("couldn't read %s: %s", path,
+                                                                              e.getMessage()));
+                    }
+                }
+            }
+            catch(IOException e)
+            {
+                events.postEvent(EventType.DEBUG, () -> String.format("couldn't list %s: %s", directory, e.getMessage()));
+            }
+        }
+        
+        Map<String, Entry> previous = entries;
+        entries = scanned;
+        totalBytes = scanned.values().stream().mapToLong(Entry::getSize).sum();
+        mostRecent = scanned.values().stream().max(Comparator.comparingLong(Entry::getLastModified)).orElse(null);
+        lastModifiedEvent.keySet().retainAll(scanned.keySet());
+        
+        List<Event> changes = new ArrayList<>();
+        for(Map.Entry<String, Entry> entry: scanned.entrySet())
+        {
+            Entry old = previous.get(entry.getKey());
+            if(old == null || !old.getFile().equals(entry.getValue().getFile()))
+            {
+                changes.add(describe(EventType.VIDEO_ADDED, "Video added: ", entry.getValue().getFile()));
+            }
+            else if(old.getSize() != entry.getValue().getSize()
+                    || old.getLastModified() != entry.getValue().getLastModified())
+            {
+                lastModifiedEvent.put(entry.getKey(), System.currentTimeMillis());
+                changes.add(describe(EventType.VIDEO_MODIFIED, "Video modified: ", entry.getValue().getFile()));
+            }
+        }
+        for(Map.Entry<String, Entry> entry: previous.entrySet())
+        {
+            Entry current = scanned.get(entry.getKey());
+            if(current == null || !current.getFile().equals(entry.getValue().getFile()))
+            {
+                changes.add(describe(EventType.VIDEO_REMOVED, "Video removed: ", entry.getValue().getFile()));
+            }
+        }
+        return changes;
+    }
+    
+    // null if it's gone or isn't a file
+    private Entry readEntry(Path path) throws IOException
+    {
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if(attributes.isRegularFile())
+            {
+                return new Entry(path.toFile(), attributes.size(), attributes.lastModifiedTime().toMillis());
+            }
+        }
+        catch(NoSuchFileException e)
+        {
+            // deleted
+        }
+        return null;
+    }
+    
+    // called with the monitor held; reads the file's current state and adjusts the entry and totals to match, returning
+    // the event describing the change if there's one worth posting
+    private Event update(String name)
+    {
+        if(directory == null || !filenameValidator.hasValidName(name))
+        {
+            return null;
+        }
+        
+        Entry updated;
+        try
+        {
+            // null if it's been deleted, which is handled below
+            updated = readEntry(directory.resolve(name));
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> String.format("couldn't read %s: %s", name, e.getMessage()));
+            return null;
+        }
+        
+        Entry previous = updated != null ? entries.put(name, updated) : entries.remove(name);
+        long delta = (updated != null ? updated.getSize() : 0) - (previous != null ? previous.getSize() : 0);
+        totalBytes += delta;
+        
+        Entry currentMostRecent = mostRecent;
+        if(updated != null && (currentMostRecent == null || updated.getLastModified() >= currentMostRecent.getLastModified()))
+        {
+            mostRecent = updated;
+        }
+        else if(previous != null && currentMostRecent != null && currentMostRecent.getFile().equals(previous.getFile()))
+        {
+            // the most recent file was removed or went back in time, which is rare enough to search for the next one
+            mostRecent = entries.values()
+                                .stream()
+                                .max(Comparator.comparingLong(Entry::getLastModified))
+                                .orElse(null);
+        }
+        
+        if(previous == null && updated != null)
+        {
+            return describe(EventType.VIDEO_ADDED, "Video added: ", updated.getFile());
+        }
+        else if(previous != null && updated == null)
+        {
+            lastModifiedEvent.remove(name);
+            return describe(EventType.VIDEO_REMOVED, "Video removed: ", previous.getFile());
+        }
+        else if(previous != null && (previous.getSize() != updated.getSize()
+                || previous.getLastModified() != updated.getLastModified()))
+        {
+            long now = System.currentTimeMillis();
+            Long lastEvent = lastModifiedEvent.get(name);
+            if(lastEvent == null || now - lastEvent >= MODIFIED_EVENT_INTERVAL_MILLIS)
+            {
+                lastModifiedEvent.put(name, now);
+                return describe(EventType.VIDEO_MODIFIED, "Video modified: ", updated.getFile());
+            }
+        }
+        return null;
+    }
+    
+    private Event describe(EventType eventType, String message, File video)
+    {
+        return new Event(eventType, message + video.getName(),
+                         Map.of(EventProperty.VIDEO_FILE, video, EventProperty.VIDEO_TYPE, type));
+    }
+    
+    public static class Entry
+    {
+        private final File file;
+        private final long size;
+        private final long lastModified;
+        
+        private Entry(File file, long size, long lastModified)
+        {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+        
+        public File getFile()
+        {
+            return file;
+        }
+        
+        public long getSize()
+        {
+            return size;
+        }
+        
+        public long getLastModified()
+        {
+            return lastModified;
+        }
+    }
+}
@@ -6,22 +6,24 @@
 package io.github.trdesilva.autorecorder.video;
 
 import com.google.common.collect.Sets;
+import com.google.inject.Provider;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import io.github.trdesilva.autorecorder.Settings;
 import io.github.trdesilva.autorecorder.TimestampUtil;
+import io.github.trdesilva.autorecorder.clip.ClipJob;
+import io.github.trdesilva.autorecorder.clip.ClipQueue;
+import io.github.trdesilva.autorecorder.clip.FfmpegHelper;
 import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventConsumer;
 import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.upload.UploadJob;
-import org.joda.time.DateTime;
 
 import java.awt.Image;
 import java.io.File;
 import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -31,6 +33,8 @@ import java.util.stream.Collectors;
 public class VideoListHandler implements EventConsumer
 {
     private static final Set<EventType> EVENT_TYPES = Sets.immutableEnumSet(EventType.RECORDING_START,
+                                                                            EventType.RECORDING_END,
+                                                                            EventType.CLIP_END,
                                                                             EventType.SETTINGS_CHANGE,
                                                                             EventType.BOOKMARK,
                                                                             EventType.UPLOAD_END);
@@ -39,18 +43,37 @@ public class VideoListHandler implements EventConsumer
     private final EventQueue events;
     private final VideoFilenameValidator filenameValidator;
     private final VideoType type;
+    private final VideoDirectoryIndex index;
+    private final RecordingFileBinder binder;
+    private final RetentionEngine retentionEngine;
+    private final RecordingCompressor compressor;
     
     private File videoDir;
     
     @AssistedInject
     public VideoListHandler(Settings settings, VideoMetadataHandler metadataHandler, EventQueue events,
-                            VideoFilenameValidator filenameValidator, @Assisted VideoType type)
+                            VideoFilenameValidator filenameValidator, FfmpegHelper ffmpegHelper,
+                            Provider<ClipQueue> clipQueue, @Assisted VideoType type)
     {
         this.settings = settings;
         this.metadataHandler = metadataHandler;
         this.events = events;
         this.filenameValidator = filenameValidator;
         this.type = type;
+        index = new VideoDirectoryIndex(type, filenameValidator, events);
+        if(type == VideoType.RECORDING)
+        {
+            binder = new RecordingFileBinder(metadataHandler, events);
+            index.setCreationListener(binder::fileCreated);
+            retentionEngine = new RetentionEngine(settings, index, metadataHandler, events);
+            compressor = new RecordingCompressor(settings, index, metadataHandler, ffmpegHelper, events, clipQueue);
+        }
+        else
+        {
+            binder = null;
+            retentionEngine = null;
+            compressor = null;
+        }
         
         update();
         events.addConsumer(this);
@@ -85,9 +108,9 @@ public class VideoListHandler implements EventConsumer
     public List<File> getVideoList()
     {
         update();
-        if(videoDir != null && videoDir.exists() && videoDir.isDirectory() && videoDir.canRead())
+        if(index.isValid())
         {
-            return Arrays.asList(videoDir.listFiles(((dir, name) -> filenameValidator.hasValidName(name))));
+            return index.getVideos();
         }
         else
         {
@@ -98,6 +121,19 @@ public class VideoListHandler implements EventConsumer
         }
     }
     
+    public VideoDirectoryIndex getIndex()
+    {
+        update();
+        return index;
+    }
+    
+    // from the index when it's there, so sorting a long list doesn't go to the disk for every comparison
+    public long getLastModified(File video)
+    {
+        VideoDirectoryIndex.Entry entry = index.getEntry(video);
+        return entry != null ? entry.getLastModified() : video.lastModified();
+    }
+    
     public VideoMetadata getMetadata(File video)
     {
         return metadataHandler.getMetadata(video);
@@ -108,9 +144,19 @@ public class VideoListHandler implements EventConsumer
         metadataHandler.saveMetadata(video, metadata);
     }
     
+    public void prefetchMetadata(List<File> videos)
+    {
+        metadataHandler.prefetchMetadata(videos);
+    }
+    
     public synchronized void saveBookmark(long timestamp)
     {
         File recording = getMostRecentRecording();
+        if(recording == null)
+        {
+            events.postEvent(new Event(EventType.WARNING, "No recording to save a bookmark to"));
+            return;
+        }
         metadataHandler.saveBookmark(recording, timestamp);
         events.postEvent(new Event(EventType.INFO, "Saved bookmark at " + TimestampUtil.formatTime(timestamp)));
     }
@@ -124,114 +170,60 @@ public class VideoListHandler implements EventConsumer
             if(!updatedDir.equals(videoDir) && updatedDir.exists() && updatedDir.isDirectory())
             {
                 this.videoDir = updatedDir;
-                events.postEvent(new Event(EventType.DEBUG,
-                                           String.format("New %s directory: %s", type.name(), updatedSetting)));
+                index.setDirectory(updatedDir);
+                events.postEvent(EventType.DEBUG,
+                                 () -> String.format("New %s directory: %s", type.name(), updatedSetting));
             }
         }
     }
     
-    public void runAutoDelete()
+    @Override
+    public void post(Event event)
     {
-        if(type == VideoType.RECORDING && settings.isAutoDeleteEnabled())
+        if(event.getType().equals(EventType.RECORDING_START))
         {
-            events.postEvent(new Event(EventType.DEBUG, "Starting autodelete check"));
-            // sort videos oldest to newest (in deletion order)
-            List<File> videoList = getVideoList().stream()
-                    .sorted(Comparator.comparing(File::lastModified))
-                                                 .collect(Collectors.toList());
-            // don't automatically delete if there's only one video because that might be the active recording
-            if(videoList.size() < 2)
+            if(binder != null)
             {
-                events.postEvent(new Event(EventType.DEBUG, "Less than 2 videos, not deleting"));
-                return;
-            }
-            
-            long totalSize = 0;
-            long threshold = settings.getAutoDeleteThresholdGB() * 1024L * 1024L * 1024L;
-            for(File video : videoList)
-            {
-                totalSize += video.length();
+                // OBS may well have created the file already; the binder looks back far enough to still find it
+                update();
+                binder.sessionStarted((String) event.getProperties().get(EventProperty.GAME_NAME),
+                                      event.getTimestamp().getMillis());
             }
-            
-            if(totalSize > threshold)
+            if(retentionEngine != null)
             {
-                events.postEvent(new Event(EventType.INFO, String.format(
-                        "Recording storage is over %dGB capacity; cleaning up old recordings",
-                        settings.getAutoDeleteThresholdGB())));
+                compressor.setRecording(true);
+                retentionEngine.requestRun();
             }
-            
-            int i = 0;
-            int deletedVideos = 0;
-            while(totalSize > threshold && i < videoList.size())
+        }
+        else if(event.getType().equals(EventType.RECORDING_END))
+        {
+            // the finished recording's size is final now, which may put storage over the limit
+            if(retentionEngine != null)
             {
-                File video = videoList.get(i++);
-                totalSize -= video.length();
-                if(video.delete())
-                {
-                    deletedVideos++;
-                    metadataHandler.deleteMetadata(video);
-                }
-                else
+                retentionEngine.requestRun();
+                compressor.setRecording(false);
+                // so clipping and scrubbing it don't have to wait for a scan later
+                File recording = index.getMostRecent();
+                if(recording != null)
                 {
-                    events.postEvent(
-                            new Event(EventType.DEBUG, "Failed to delete " + video.getAbsolutePath()));
-                    totalSize += video.length(); // undo decrement because the file is still there
+                    metadataHandler.getKeyframeIndexAsync(recording);
                 }
             }
-            
-            if(deletedVideos > 0)
+        }
+        else if(event.getType().equals(EventType.CLIP_END))
+        {
+            // a failed clip ends without its file, so only the ones that were made count for the recording
+            ClipJob job = (ClipJob) event.getProperties().get(EventProperty.CLIP_JOB);
+            File recording = job != null ? getVideo(job.getSource()) : null;
+            if(type == VideoType.RECORDING && recording != null && new File(job.getDest()).isFile())
             {
-                events.postEvent(
-                        new Event(EventType.INFO, String.format("Deleted %d recordings", deletedVideos)));
+                metadataHandler.saveClipMade(recording);
             }
-            else
+            if(compressor != null)
             {
-                events.postEvent(new Event(EventType.DEBUG,
-                                           String.format("Nothing deleted, total size %d", totalSize)));
+                compressor.clipEnded();
             }
         }
-    }
-    
-    @Override
-    public void post(Event event)
-    {
-        if(event.getType().equals(EventType.RECORDING_START))
-        {
-            new Thread(() -> {
-                runAutoDelete();
-                update();
-                if(type.equals(VideoType.RECORDING))
-                {
-                    File mostRecent = getMostRecentRecording();
-                    VideoMetadata metadata = getMetadata(mostRecent);
-                    int tries = 0;
-                    while(!(metadata.getGameName().isBlank() && new DateTime(mostRecent.lastModified()).isAfter(
-                            DateTime.now().minusSeconds(5))))
-                    {
-                        try
-                        {
-                            mostRecent = getMostRecentRecording();
-                            metadata = getMetadata(mostRecent);
-                            events.postEvent(new Event(EventType.DEBUG, "most recent: " + mostRecent.getName()));
-                            if(++tries > 10)
-                            {
-                                events.postEvent(new Event(EventType.WARNING, "Could not find new recording; did OBS start?"));
-                                return;
-                            }
-                            Thread.sleep(1000);
-                        }
-                        catch(InterruptedException e)
-                        {
-                            events.postEvent(new Event(EventType.DEBUG, "Metadata polling sleep interrupted"));
-                        }
-                    }
-                    String gameName = (String) event.getProperties().get(EventProperty.GAME_NAME);
-                    metadata.setGameName(gameName);
-                    metadataHandler.saveMetadata(mostRecent, metadata);
-                    events.postEvent(new Event(EventType.DEBUG, String.format("Game name %s set on metadata for %s", gameName, mostRecent.getName())));
-                }
-            }).start();
-        }
         else if(event.getType().equals(EventType.SETTINGS_CHANGE))
         {
             new Thread(this::update).start();
@@ -264,10 +256,8 @@ public class VideoListHandler implements EventConsumer
     
     private File getMostRecentRecording()
     {
-        File recording = getVideoList().stream()
-                                       .max(Comparator.comparing(File::lastModified))
-                                       .get();
-        return recording;
+        update();
+        return index.getMostRecent();
     }
     
 }
@@ -19,6 +19,8 @@ public class VideoMetadata
     private String gameName = "";
     private String thumbnailPath = "";
     private String uploadLink = "";
+    private int clipCount = 0;
+    private boolean recompressed = false;
     
     public DateTime getCreationDate()
     {
@@ -89,4 +91,24 @@ public class VideoMetadata
     {
         this.uploadLink = uploadLink;
     }
+    
+    public int getClipCount()
+    {
+        return clipCount;
+    }
+    
+    public void setClipCount(int clipCount)
+    {
+        this.clipCount = clipCount;
+    }
+    
+    public boolean isRecompressed()
+    {
+        return recompressed;
+    }
+    
+    public void setRecompressed(boolean recompressed)
+    {
+        this.recompressed = recompressed;
+    }
 }
@@ -6,11 +6,7 @@
 package io.github.trdesilva.autorecorder.video;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.github.trdesilva.autorecorder.Settings;
@@ -19,103 +15,68 @@ import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventProperty;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
+import io.github.trdesilva.autorecorder.video.ContainerHeaderParser.ContainerHeader;
 import io.github.trdesilva.autorecorder.ui.gui.wrapper.ThumbnailCache;
 import org.joda.time.DateTime;
 
 import java.awt.Image;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Singleton
-public class VideoMetadataHandler
+public class VideoMetadataHandler implements AutoCloseable
 {
-    private static final Path CACHE_PATH = Settings.SETTINGS_DIR.resolve("videoMetadata");
+    private static final int LOCK_STRIPES = 64;
     
     private final Settings settings;
     private final EventQueue events;
     private final FfmpegHelper ffmpegHelper;
     private final ThumbnailCache thumbnailCache;
+    private final FfprobePool ffprobePool;
+    private final MetadataStore metadataStore;
     
-    private final ObjectMapper objectMapper;
-    
-    private final File cacheDir;
-    private final LoadingCache<File, VideoMetadata> metadataMapping;
-    private final Map<File, ReentrantLock> metadataLocks;
+    private final MetadataCache metadataCache;
+    private final MetadataWriteBehind writeBehind;
+    private final KeyframeIndexer keyframeIndexer;
+    // a fixed set of locks shared out by hash, so videos that are never touched again don't leave one behind
+    private final Striped<Lock> metadataLocks;
+    // parses waiting on ffprobe, so a video that's asked for repeatedly is only parsed once
+    private final Map<File, CompletableFuture<VideoMetadata>> pendingParses;
     
     @Inject
-    public VideoMetadataHandler(Settings settings, EventQueue events, FfmpegHelper ffmpegHelper, ThumbnailCache thumbnailCache)
+    public VideoMetadataHandler(Settings settings, EventQueue events, FfmpegHelper ffmpegHelper,
+                                ThumbnailCache thumbnailCache, FfprobePool ffprobePool, MetadataStore metadataStore)
     {
         this.settings = settings;
         this.events = events;
         this.ffmpegHelper = ffmpegHelper;
         this.thumbnailCache = thumbnailCache;
+        this.ffprobePool = ffprobePool;
+        this.metadataStore = metadataStore;
         
-        objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JodaModule());
-        
-        cacheDir = CACHE_PATH.toFile();
-        metadataLocks = new ConcurrentHashMap<>();
+        metadataLocks = Striped.lock(LOCK_STRIPES);
+        pendingParses = new ConcurrentHashMap<>();
         
-        metadataMapping = CacheBuilder.newBuilder()
-                                      .maximumSize(100)
-                                      .expireAfterWrite(1, TimeUnit.DAYS)
-                                      .build(new CacheLoader<>()
-                                      {
-                                          @Override
-                                          public VideoMetadata load(File key) throws Exception
-                                          {
-                                              // check if directory exists on load because SETTINGS_DIR doesn't exist during construction on first launch
-                                              if(!cacheDir.exists())
-                                              {
-                                                  if(cacheDir.mkdir())
-                                                  {
-                                                      cacheDir.setReadable(true);
-                                                      cacheDir.setWritable(true);
-                                                  }
-                                                  else
-                                                  {
-                                                      events.postEvent(new Event(EventType.FAILURE,
-                                                                                 "Failed to create metadata cache"));
-                                                      return new VideoMetadata();
-                                                  }
-                                              }
-                
-                                              File cacheFile = findCacheFile(key);
-                                              if(cacheFile.exists())
-                                              {
-                                                  ReentrantLock lock = getMetadataLock(key);
-                                                  lock.lock();
-                                                  try
-                                                  {
-                                                      VideoMetadata metadata = objectMapper.readValue(cacheFile,
-                                                                                                      VideoMetadata.class);
-                                                      if(!needsReparse(metadata))
-                                                      {
-                                                          return metadata;
-                                                      }
-                                                  }
-                                                  finally
-                                                  {
-                                                      lock.unlock();
-                                                  }
-                                              }
-                
-                                              return parseVideo(key);
-                                          }
-                                      });
+        metadataCache = new MetadataCache(events, video -> findThumbnail(video).getAbsolutePath());
+        writeBehind = new MetadataWriteBehind(this::writeMetadata);
+        keyframeIndexer = new KeyframeIndexer(ffmpegHelper, events, video -> metadataStore.getDirectory().resolve(
+                findStoreKey(video) + ".keyframes"));
     }
     
     public DateTime getCreationDate(File video)
@@ -166,9 +127,16 @@ public class VideoMetadataHandler
         return null;
     }
     
+    // without blocking, this only looks at metadata that's already loaded
     public Image getThumbnail(File video, boolean block)
     {
-        String thumbnailPath = getMetadata(video).getThumbnailPath();
+        VideoMetadata metadata = block ? getMetadata(video) : metadataCache.getIfPresent(video);
+        if(metadata == null)
+        {
+            return null;
+        }
+        
+        String thumbnailPath = metadata.getThumbnailPath();
         if(!thumbnailPath.isBlank() && new File(thumbnailPath).exists())
         {
             try
@@ -196,28 +164,70 @@ public class VideoMetadataHandler
         return fetchMetadataItem(video, metadata -> metadata, new VideoMetadata());
     }
     
-    public void saveMetadata(File video, VideoMetadata metadata)
+    // completes once the video's metadata is in the cache, parsing it in the background if it has to
+    public CompletableFuture<VideoMetadata> getMetadataAsync(File video)
     {
-        if(video != null && video.exists() && metadata != null)
+        Object version = metadataCache.getVersion(video);
+        VideoMetadata cached = metadataCache.get(video);
+        if(cached != null && !needsReparse(cached))
         {
-            ReentrantLock lock = getMetadataLock(video);
-            lock.lock();
-            try
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        long loadStart = System.nanoTime();
+        VideoMetadata stored = readStoredMetadata(video);
+        if(stored != null && !needsReparse(stored))
+        {
+            metadataCache.recordLoad(System.nanoTime() - loadStart);
+            return CompletableFuture.completedFuture(cacheLoaded(video, version, stored));
+        }
+        
+        return parseVideo(video).thenApply(metadata -> {
+            metadataCache.recordLoad(System.nanoTime() - loadStart);
+            return cacheLoaded(video, version, metadata);
+        });
+    }
+    
+    // starts loading metadata for a whole list so the cache fills in parallel while callers read what's done
+    public void prefetchMetadata(List<File> videos)
+    {
+        new Thread(() -> {
+            for(File video: videos)
             {
-                objectMapper.writeValue(findCacheFile(video), metadata);
+                if(video.exists())
+                {
+                    getMetadataAsync(video);
+                }
             }
-            catch(IOException e)
+        }, "Metadata prefetch thread").start();
+    }
+    
+    // null if the video hasn't been indexed yet, or has changed since
+    public KeyframeIndex getKeyframeIndexIfReady(File video)
+    {
+        return keyframeIndexer.getIfReady(video);
+    }
+    
+    // indexes the video in the background if it has to, which reads the whole file
+    public CompletableFuture<KeyframeIndex> getKeyframeIndexAsync(File video)
+    {
+        return keyframeIndexer.get(video);
+    }
+    
+    public void saveMetadata(File video, VideoMetadata metadata)
+    {
+        if(video != null && video.exists() && metadata != null)
+        {
+            // the cache has the new version straight away, so nothing after this has to go back to disk for it
+            metadataCache.put(video, metadata);
+            if(settings.isMetadataWriteBehindEnabled())
             {
-                events.postEvent(new Event(EventType.DEBUG,
-                                           String.format("failed to save metadata %s for file %s: %s", metadata,
-                                                         video.getName(), e.getMessage())));
+                writeBehind.save(video, metadata);
             }
-            finally
+            else
             {
-                lock.unlock();
+                writeMetadata(video, metadata);
             }
-            metadataMapping.put(video, metadata);
-            metadataMapping.invalidate(video);
         }
     }
     
@@ -225,42 +235,87 @@ public class VideoMetadataHandler
     {
         if(video != null && !video.exists())
         {
-            ReentrantLock lock = getMetadataLock(video);
+            ffprobePool.cancel(video);
+            writeBehind.takePending(video);
+            keyframeIndexer.delete(video);
+            Lock lock = getMetadataLock(video);
             lock.lock();
             try
             {
-                events.postEvent(new Event(EventType.DEBUG,
-                                           "deleting metadata for file " + video.getName()));
+                events.postEvent(EventType.DEBUG, () -> "deleting metadata for file " + video.getName());
                 
-                if(!findCacheFile(video).delete())
+                try
+                {
+                    metadataStore.delete(findStoreKey(video));
+                }
+                catch(IOException e)
                 {
-                    events.postEvent(new Event(EventType.DEBUG,
-                                               String.format("failed to delete metadata for file %s", video.getName())));
+                    events.postEvent(EventType.DEBUG,
+                                     () -> String.format("failed to delete metadata for file %s", video.getName()));
                 }
                 
                 if(!findThumbnail(video).delete())
                 {
-                    events.postEvent(new Event(EventType.DEBUG,
-                                               String.format("failed to delete thumbnail for file %s", video.getName())));
+                    events.postEvent(EventType.DEBUG,
+                                     () -> String.format("failed to delete thumbnail for file %s", video.getName()));
                 }
             }
             finally
             {
                 lock.unlock();
             }
-            metadataMapping.invalidate(video);
+            metadataCache.invalidate(video);
         }
     }
     
     public void saveBookmark(File recording, long timestamp)
     {
-        ReentrantLock lock = getMetadataLock(recording);
+        updateKnownMetadata(recording, metadata -> metadata.getBookmarks().add(timestamp));
+    }
+    
+    public void saveGameName(File recording, String gameName)
+    {
+        updateKnownMetadata(recording, metadata -> metadata.setGameName(gameName));
+    }
+    
+    // the store is closed through here so saves still waiting on the write-behind go into it first
+    @Override
+    public void close()
+    {
+        writeBehind.flushAll();
+        metadataStore.close();
+    }
+    
+    public void saveClipMade(File recording)
+    {
+        updateKnownMetadata(recording, metadata -> metadata.setClipCount(metadata.getClipCount() + 1));
+    }
+    
+    public void saveRecompressed(File recording)
+    {
+        updateKnownMetadata(recording, metadata -> metadata.setRecompressed(true));
+    }
+    
+    // for changes to a recording that may still be in progress
+    private void updateKnownMetadata(File video, Consumer<VideoMetadata> update)
+    {
+        Lock lock = getMetadataLock(video);
         lock.lock();
         try
         {
-            VideoMetadata metadata = getMetadata(recording);
-            metadata.getBookmarks().add(timestamp);
-            saveMetadata(recording, metadata);
+            // getMetadata could wait on a probe whose results are written under this lock (or one sharing its
+            // stripe), so only look at what's already known; these changes don't need the rest to be up to date
+            VideoMetadata metadata = metadataCache.getIfPresent(video);
+            if(metadata == null)
+            {
+                metadata = readStoredMetadata(video);
+            }
+            if(metadata == null)
+            {
+                metadata = new VideoMetadata();
+            }
+            update.accept(metadata);
+            saveMetadata(video, metadata);
         }
         finally
         {
@@ -274,82 +329,240 @@ public class VideoMetadataHandler
         {
             try
             {
-                VideoMetadata metadata = metadataMapping.get(video);
-                if(needsReparse(metadata))
+                Object version = metadataCache.getVersion(video);
+                VideoMetadata metadata = metadataCache.get(video);
+                if(metadata == null)
+                {
+                    metadata = cacheLoaded(video, version, loadMetadata(video));
+                }
+                else if(needsReparse(metadata))
                 {
-                    metadataMapping.invalidate(video);
+                    metadataCache.invalidate(video, version);
                 }
                 return metadataGetter.apply(metadata);
             }
             catch(ExecutionException e)
             {
-                events.postEvent(new Event(EventType.DEBUG, "cache load failed " + e.getMessage()));
+                events.postEvent(EventType.DEBUG, () -> "cache load failed " + e.getMessage());
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
             }
         }
         return defaultValue;
     }
     
-    private ReentrantLock getMetadataLock(File video)
+    // caches metadata that was read or parsed while the given version was cached, unless it's been saved since; a save
+    // has everything the load found plus whatever changed, like a bookmark added while the recording's being parsed.
+    // returns whichever is newer
+    private VideoMetadata cacheLoaded(File video, Object version, VideoMetadata loaded)
+    {
+        // it'd only be parsed again on the next read
+        if(needsReparse(loaded))
+        {
+            return loaded;
+        }
+        
+        Lock lock = getMetadataLock(video);
+        lock.lock();
+        try
+        {
+            if(metadataCache.putIfUnchanged(video, version, loaded))
+            {
+                return loaded;
+            }
+            VideoMetadata newer = metadataCache.getIfPresent(video);
+            return newer != null ? newer : loaded;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+    
+    private VideoMetadata loadMetadata(File video) throws ExecutionException, InterruptedException
+    {
+        long loadStart = System.nanoTime();
+        try
+        {
+            VideoMetadata metadata = readStoredMetadata(video);
+            if(metadata != null && !needsReparse(metadata))
+            {
+                return metadata;
+            }
+            
+            return parseVideo(video).get();
+        }
+        finally
+        {
+            metadataCache.recordLoad(System.nanoTime() - loadStart);
+        }
+    }
+    
+    private Lock getMetadataLock(File video)
+    {
+        return metadataLocks.get(video);
+    }
+    
+    private void writeMetadata(File video, VideoMetadata metadata)
+    {
+        if(!video.exists())
+        {
+            return;
+        }
+        
+        Lock lock = getMetadataLock(video);
+        lock.lock();
+        try
+        {
+            metadataStore.put(findStoreKey(video), metadata);
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG,
+                             () -> String.format("failed to save metadata %s for file %s: %s", metadata,
+                                                 video.getName(), e.getMessage()));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+    
+    private VideoMetadata readStoredMetadata(File video)
+    {
+        VideoMetadata pending = writeBehind.getPending(video);
+        if(pending != null)
+        {
+            return pending;
+        }
+        
+        Lock lock = getMetadataLock(video);
+        lock.lock();
+        try
+        {
+            return metadataStore.get(findStoreKey(video));
+        }
+        catch(IOException e)
+        {
+            events.postEvent(EventType.DEBUG, () -> "failed to read stored metadata: " + e.getMessage());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        
+        return null;
+    }
+    
+    private CompletableFuture<VideoMetadata> parseVideo(File video)
+    {
+        if(video == null || !video.exists())
+        {
+            return CompletableFuture.completedFuture(new VideoMetadata());
+        }
+        
+        CompletableFuture<VideoMetadata> parse = new CompletableFuture<>();
+        CompletableFuture<VideoMetadata> existing = pendingParses.putIfAbsent(video, parse);
+        if(existing != null)
+        {
+            return existing;
+        }
+        
+        // most OBS output can be read directly; everything else goes to ffprobe, and the metadata is built on the
+        // pool once it's done
+        Optional<ContainerHeader> nativeHeader = ContainerHeaderParser.parse(video);
+        CompletableFuture<ContainerHeader> header = nativeHeader.isPresent()
+                                                    ? CompletableFuture.completedFuture(nativeHeader.get())
+                                                    : ffprobePool.probe(video).thenApply(this::readFfprobeHeader);
+        header.thenApply(h -> parseVideo(video, h))
+              .exceptionally(e -> {
+                  // cancelled because the video is gone, so there's nobody to warn
+                  if(!(e instanceof CancellationException || e.getCause() instanceof CancellationException))
+                  {
+                      events.postEvent(new Event(EventType.WARNING, "Couldn't read metadata for " + video.getName()));
+                      events.postEvent(EventType.DEBUG, e::getMessage);
+                  }
+                  return new VideoMetadata();
+              })
+              .thenAccept(metadata -> {
+                  pendingParses.remove(video, parse);
+                  parse.complete(metadata);
+              });
+        return parse;
+    }
+    
+    private ContainerHeader readFfprobeHeader(JsonNode ffmpegJson)
     {
-        return metadataLocks.computeIfAbsent(video, f -> new ReentrantLock());
+        int width = 0;
+        int height = 0;
+        if(ffmpegJson.has("streams") && ffmpegJson.get("streams").has(0)
+                && ffmpegJson.get("streams").get(0).has("width") && ffmpegJson.get("streams").get(0).has("height"))
+        {
+            width = ffmpegJson.get("streams").get(0).get("width").asInt();
+            height = ffmpegJson.get("streams").get(0).get("height").asInt();
+        }
+        
+        long durationMillis = -1;
+        if(ffmpegJson.has("format") && ffmpegJson.get("format").has("duration"))
+        {
+            durationMillis = (long) (ffmpegJson.get("format").get("duration").asDouble() * 1000);
+        }
+        
+        return new ContainerHeader(width, height, durationMillis);
     }
     
-    private synchronized VideoMetadata parseVideo(File video)
+    private VideoMetadata parseVideo(File video, ContainerHeader header)
     {
         if(video != null && video.exists())
         {
-            ReentrantLock lock = getMetadataLock(video);
+            Lock lock = getMetadataLock(video);
             lock.lock();
             try
             {
-                File currentMetadataFile = findCacheFile(video);
-                VideoMetadata metadata;
-                if(currentMetadataFile.exists())
+                String storeKey = findStoreKey(video);
+                // a save still waiting to be flushed is newer than what's stored, and this write includes it
+                VideoMetadata metadata = writeBehind.takePending(video);
+                if(metadata == null)
                 {
-                    metadata = objectMapper.readValue(currentMetadataFile, VideoMetadata.class);
+                    metadata = metadataStore.get(storeKey);
                 }
-                else
+                if(metadata == null)
                 {
                     metadata = new VideoMetadata();
                 }
-                JsonNode ffmpegJson = getMetadataJson(video);
                 metadata.setCreationDate(new DateTime(video.lastModified()));
                 
-                int width;
-                int height;
-                if(!ffmpegJson.has("streams") || !ffmpegJson.get("streams").has(0)
-                        || !(ffmpegJson.get("streams").get(0).has("width") && ffmpegJson.get("streams")
-                                                                                        .get(0)
-                                                                                        .has("height")))
+                int width = header.getWidth();
+                int height = header.getHeight();
+                if(width == 0 || height == 0)
                 {
-                    width = 0;
-                    height = 0;
                     metadata.setResolution("N/A");
                 }
                 else
                 {
-                    width = ffmpegJson.get("streams").get(0).get("width").asInt();
-                    height = ffmpegJson.get("streams").get(0).get("height").asInt();
                     metadata.setResolution(String.format("%dx%d", width, height));
                 }
     
-                if(!ffmpegJson.has("format") || !ffmpegJson.get("format").has("duration"))
+                if(header.getDurationMillis() < 0)
                 {
                     metadata.setDuration(-1);
                 }
                 else
                 {
                     // this is a proxy for the recording being complete, so we can generate a thumbnail now too
-                    double durationSeconds = ffmpegJson.get("format").get("duration").asDouble();
-                    metadata.setDuration((long) (durationSeconds * 1000));
+                    double durationSeconds = header.getDurationMillis() / 1000.;
+                    metadata.setDuration(header.getDurationMillis());
     
                     String thumbnailPath = findThumbnail(video).getAbsolutePath();
+                    double thumbnailSeconds = findThumbnailTime(video, Math.min(600, (int) (durationSeconds / 2)));
                     new Thread(() -> {
                         try
                         {
                             ffmpegHelper.runFfmpeg(
                                     new LinkedList<>(Arrays.asList("-ss",
-                                                                   String.format("%d", (int) Math.min(600, durationSeconds / 2)),
+                                                                   String.format(Locale.ROOT, "%.3f", thumbnailSeconds),
                                                                    "-i",
                                                                    video.getAbsolutePath(),
                                                                    "-frames:v",
@@ -367,19 +580,19 @@ public class VideoMetadataHandler
                         catch(IOException|InterruptedException e)
                         {
                             events.postEvent(new Event(EventType.WARNING, "Couldn't create thumbnail for " + video.getName()));
-                            events.postEvent(new Event(EventType.DEBUG, e.getMessage()));
+                            events.postEvent(EventType.DEBUG, e::getMessage);
                         }
                     }).start();
                     metadata.setThumbnailPath(thumbnailPath);
                 }
                 
-                objectMapper.writeValue(currentMetadataFile, metadata);
+                metadataStore.put(storeKey, metadata);
                 return metadata;
             }
             catch(IOException e)
             {
                 events.postEvent(new Event(EventType.WARNING, "Couldn't read metadata for " + video.getName()));
-                events.postEvent(new Event(EventType.DEBUG, e.getMessage()));
+                events.postEvent(EventType.DEBUG, e::getMessage);
             }
             finally
             {
@@ -390,41 +603,26 @@ public class VideoMetadataHandler
         return new VideoMetadata();
     }
     
-    private JsonNode getMetadataJson(File video) throws IOException
+    // the same name the video's metadata used to be saved under as a json file, which is what makes migrating simple
+    private String findStoreKey(File video)
     {
-        String[] ffprobeArgs = {settings.getFfprobePath(), "-v", "quiet", "-print_format", "json", "-show_format", "-show_streams", "-select_streams", "v:0", video.getAbsolutePath()};
-        Process ffprobeProc = Runtime.getRuntime()
-                                     .exec(ffprobeArgs, null,
-                                           new File(Paths.get(settings.getFfmpegPath()).getParent().toString()));
-        InputStream stdout = ffprobeProc.getInputStream();
-        try
-        {
-            ffprobeProc.waitFor(2000, TimeUnit.MILLISECONDS);
-        }
-        catch(InterruptedException e)
-        {
-            throw new IOException(e);
-        }
-        
-        return objectMapper.readTree(stdout);
+        Path original = Paths.get(video.toURI());
+        return original.getParent().getFileName() + "_" + original.getFileName()
+                                                                  .toString()
+                                                                  .replace('.', '_');
     }
     
-    private File findCacheFile(File video)
+    // on a keyframe if we know where they are, so ffmpeg doesn't have to decode its way there
+    private double findThumbnailTime(File video, int seconds)
     {
-        Path original = Paths.get(video.toURI());
-        String name = original.getParent().getFileName() + "_" + original.getFileName()
-                                                                         .toString()
-                                                                         .replace('.', '_') + ".json";
-        return CACHE_PATH.resolve(name).toFile();
+        KeyframeIndex index = keyframeIndexer.getIfReady(video);
+        int keyframe = index != null ? index.floor(seconds * 1000000L) : -1;
+        return keyframe >= 0 ? index.getTimeMicros(keyframe) / 1e6 : seconds;
     }
     
     private File findThumbnail(File video)
     {
-        Path original = Paths.get(video.toURI());
-        String name = original.getParent().getFileName() + "_" + original.getFileName()
-                                                                         .toString()
-                                                                         .replace('.', '_') + ".jpg";
-        return CACHE_PATH.resolve(name).toFile();
+        return metadataStore.getDirectory().resolve(findStoreKey(video) + ".jpg").toFile();
     }
     
     private boolean needsReparse(VideoMetadata metadata)
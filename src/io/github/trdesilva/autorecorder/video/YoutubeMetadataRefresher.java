@@ -9,7 +9,6 @@ import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Video;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
-import io.github.trdesilva.autorecorder.event.Event;
 import io.github.trdesilva.autorecorder.event.EventQueue;
 import io.github.trdesilva.autorecorder.event.EventType;
 import io.github.trdesilva.autorecorder.ui.gui.ReportableException;
@@ -44,7 +43,7 @@ public class YoutubeMetadataRefresher
     
     public void refreshMetadata() throws ReportableException, GeneralSecurityException, IOException
     {
-        events.postEvent(new Event(EventType.DEBUG, "Starting Youtube metadata refresh"));
+        events.postEvent(EventType.DEBUG, "Starting Youtube metadata refresh");
         YouTube youtubeService = youtubeServiceFactory.getService();
         List<File> clipList = clipHandler.getVideoList();
         
@@ -70,12 +69,12 @@ public class YoutubeMetadataRefresher
                 String id = metadata.getUploadLink().substring(YoutubeUploader.VIDEO_URL_PREFIX.length());
                 if(!validIdSet.contains(id))
                 {
-                    events.postEvent(new Event(EventType.DEBUG, String.format("Video %s not found in user's video list; removing link from metadata", id)));
+                    events.postEvent(EventType.DEBUG, () -> String.format("Video %s not found in user's video list; removing link from metadata", id));
                     metadata.setUploadLink("");
                     metadataHandler.saveMetadata(videoFile, metadata);
                 }
             }
         }
-        events.postEvent(new Event(EventType.DEBUG, "Youtube metadata refresh done"));
+        events.postEvent(EventType.DEBUG, "Youtube metadata refresh done");
     }
 }